@@ -39,6 +39,9 @@ const CartPage = () => {
         await orderApi.addItemToOrder(orderId, item.id, item.quantity);
       }
 
+      // Close the order; payment is charged for what it holds now
+      await orderApi.checkoutOrder(orderId);
+
       clearCart();
       toast.success('Order placed successfully!');
       navigate(`/checkout/${orderId}`);
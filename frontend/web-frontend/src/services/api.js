@@ -53,6 +53,7 @@ export const orderApi = {
   getAllOrders: () => orderClient.get("/orders/all"),
   addItemToOrder: (orderId, productId, quantity) =>
     orderClient.post(`/orders/${orderId}/items`, { productId, quantity }),
+  checkoutOrder: (orderId) => orderClient.post(`/orders/${orderId}/checkout`),
   updateOrderStatus: (orderId, status) =>
     orderClient.put(`/orders/${orderId}/status?status=${status}`),
   deleteOrder: (orderId) => orderClient.delete(`/orders/${orderId}`),
@@ -6,5 +6,6 @@ psql -v ON_ERROR_STOP=1 --username "$POSTGRES_USER" <<-EOSQL
     CREATE DATABASE order_db;
     CREATE DATABASE payment_db;
     CREATE DATABASE loyalty_db;
+    CREATE DATABASE notification_db;
     CREATE DATABASE keycloak;
 EOSQL
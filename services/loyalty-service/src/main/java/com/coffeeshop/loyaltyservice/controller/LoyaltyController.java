@@ -1,16 +1,17 @@
 package com.coffeeshop.loyaltyservice.controller;
 
+import com.coffeeshop.loyaltyservice.dto.LoyaltyBalance;
+import com.coffeeshop.loyaltyservice.dto.LoyaltyHistoryPage;
 import com.coffeeshop.loyaltyservice.model.LoyaltyAccount;
 import com.coffeeshop.loyaltyservice.model.LoyaltyTransaction;
 import com.coffeeshop.loyaltyservice.service.LoyaltyService;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
 
-import java.math.BigDecimal;
-import java.util.List;
-import java.util.Map;
+import java.time.LocalDateTime;
 
 @RestController
 @RequestMapping("/api/loyalty")
@@ -25,29 +26,27 @@ public class LoyaltyController {
     @GetMapping("/account")
     public ResponseEntity<LoyaltyAccount> getAccount(@AuthenticationPrincipal Jwt jwt) {
         String username = jwt.getClaimAsString("preferred_username");
-        LoyaltyAccount account = loyaltyService.getOrCreateAccount(username);
+        LoyaltyAccount account = loyaltyService.getAccountView(username);
         return ResponseEntity.ok(account);
     }
 
     @GetMapping("/balance")
-    public ResponseEntity<Map<String, Object>> getBalance(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<LoyaltyBalance> getBalance(@AuthenticationPrincipal Jwt jwt) {
         String username = jwt.getClaimAsString("preferred_username");
-        LoyaltyAccount account = loyaltyService.getOrCreateAccount(username);
-        BigDecimal redeemableValue = loyaltyService.getRedeemableValue(username);
-        
-        return ResponseEntity.ok(Map.of(
-                "pointsBalance", account.getPointsBalance(),
-                "tier", account.getTier().name(),
-                "lifetimePoints", account.getLifetimePoints(),
-                "redeemableValue", redeemableValue
-        ));
+        return ResponseEntity.ok(loyaltyService.getBalance(username));
     }
 
+    // Newest first; pass nextCursor back to continue
     @GetMapping("/history")
-    public ResponseEntity<List<LoyaltyTransaction>> getTransactionHistory(@AuthenticationPrincipal Jwt jwt) {
+    public ResponseEntity<LoyaltyHistoryPage> getTransactionHistory(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) LoyaltyTransaction.TransactionType type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit) {
         String username = jwt.getClaimAsString("preferred_username");
-        List<LoyaltyTransaction> history = loyaltyService.getTransactionHistory(username);
-        return ResponseEntity.ok(history);
+        return ResponseEntity.ok(loyaltyService.getTransactionHistory(username, type, from, to, cursor, limit));
     }
 
     @PostMapping("/redeem")
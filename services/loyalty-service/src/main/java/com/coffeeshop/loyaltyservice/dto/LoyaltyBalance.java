@@ -0,0 +1,7 @@
+package com.coffeeshop.loyaltyservice.dto;
+
+import com.coffeeshop.loyaltyservice.model.LoyaltyAccount.LoyaltyTier;
+
+import java.math.BigDecimal;
+
+public record LoyaltyBalance(int pointsBalance, LoyaltyTier tier, int lifetimePoints, BigDecimal redeemableValue) {}
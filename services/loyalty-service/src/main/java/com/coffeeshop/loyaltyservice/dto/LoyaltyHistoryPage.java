@@ -0,0 +1,6 @@
+package com.coffeeshop.loyaltyservice.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record LoyaltyHistoryPage(List<LoyaltyTransactionView> transactions, String nextCursor) {}
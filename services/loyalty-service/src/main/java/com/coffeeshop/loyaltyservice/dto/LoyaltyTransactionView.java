@@ -0,0 +1,9 @@
+package com.coffeeshop.loyaltyservice.dto;
+
+import com.coffeeshop.loyaltyservice.model.LoyaltyTransaction.TransactionType;
+
+import java.time.LocalDateTime;
+
+// History-view projection of a ledger row, without its account
+public record LoyaltyTransactionView(Long id, Long orderId, int points, TransactionType transactionType,
+                                     String description, LocalDateTime createdAt) {}
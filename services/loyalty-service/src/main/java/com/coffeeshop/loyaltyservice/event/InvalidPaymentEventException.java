@@ -0,0 +1,9 @@
+package com.coffeeshop.loyaltyservice.event;
+
+// A payment event that can never be awarded (missing order, customer or amount); retrying it won't help
+public class InvalidPaymentEventException extends RuntimeException {
+
+    public InvalidPaymentEventException(String message) {
+        super(message);
+    }
+}
@@ -1,45 +1,82 @@
 package com.coffeeshop.loyaltyservice.listener;
 
+import com.coffeeshop.loyaltyservice.event.InvalidPaymentEventException;
 import com.coffeeshop.loyaltyservice.event.PaymentProcessedEvent;
 import com.coffeeshop.loyaltyservice.service.LoyaltyService;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.List;
+
 @Component
 public class PaymentEventListener {
 
     private static final Logger logger = LoggerFactory.getLogger(PaymentEventListener.class);
     
     private final LoyaltyService loyaltyService;
-    private final ObjectMapper objectMapper;
 
-    public PaymentEventListener(LoyaltyService loyaltyService, ObjectMapper objectMapper) {
+    public PaymentEventListener(LoyaltyService loyaltyService) {
         this.loyaltyService = loyaltyService;
-        this.objectMapper = objectMapper;
     }
 
-    @KafkaListener(topics = "payments.processed", groupId = "loyalty-service-group")
-    public void handlePaymentProcessed(String message) {
-        try {
-            PaymentProcessedEvent event = objectMapper.readValue(message, PaymentProcessedEvent.class);
-            
-            if ("COMPLETED".equals(event.getStatus()) || "SUCCESS".equals(event.getStatus())) {
-                logger.info("Processing payment event for order {} by user {}", 
-                        event.getOrderId(), event.getCustomerUsername());
-                
-                loyaltyService.awardPoints(
-                        event.getCustomerUsername(),
-                        event.getOrderId(),
-                        event.getAmount()
-                );
-            } else {
-                logger.info("Skipping points award for non-successful payment: {}", event.getStatus());
+    // The whole poll is awarded in one transaction and acknowledged after it commits. A failure (including a
+    // unique-index race with another consumer) propagates, so the error handler redelivers the poll and the
+    // retry skips whatever is already in the ledger. An event that can't be awarded fails only itself: the
+    // events before it are awarded first, and BatchListenerFailedException tells the error handler to commit
+    // up to it, skip it and redeliver the rest.
+    @KafkaListener(topics = "payments.processed", groupId = "loyalty-service-group",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void handlePaymentsProcessed(List<PaymentProcessedEvent> events, Acknowledgment ack) {
+        List<PaymentProcessedEvent> successful = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            PaymentProcessedEvent event = events.get(i);
+            if (event != null && !isSuccessful(event)) {
+                continue;
+            }
+            String problem = validate(event);
+            if (problem != null) {
+                award(successful);
+                throw new BatchListenerFailedException("Skipping payment event: " + problem,
+                        new InvalidPaymentEventException(problem), i);
             }
-        } catch (Exception e) {
-            logger.error("Error processing payment event: {}", e.getMessage(), e);
+            successful.add(event);
+        }
+        if (successful.size() < events.size()) {
+            logger.info("Skipping points award for {} non-successful payments", events.size() - successful.size());
+        }
+        award(successful);
+        ack.acknowledge();
+    }
+
+    private void award(List<PaymentProcessedEvent> payments) {
+        if (!payments.isEmpty()) {
+            loyaltyService.awardPointsBatch(payments);
+        }
+    }
+
+    private static boolean isSuccessful(PaymentProcessedEvent event) {
+        return "COMPLETED".equals(event.getStatus()) || "SUCCESS".equals(event.getStatus());
+    }
+
+    // Null when the event can be awarded
+    private static String validate(PaymentProcessedEvent event) {
+        if (event == null) {
+            return "unreadable event";
+        }
+        if (event.getOrderId() == null) {
+            return "no order id";
+        }
+        if (event.getCustomerUsername() == null || event.getCustomerUsername().isBlank()) {
+            return "no customer for order " + event.getOrderId();
+        }
+        if (event.getAmount() == null || event.getAmount().signum() < 0) {
+            return "invalid amount for order " + event.getOrderId();
         }
+        return null;
     }
 }
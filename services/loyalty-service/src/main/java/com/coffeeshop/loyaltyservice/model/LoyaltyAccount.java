@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class LoyaltyAccount {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loyalty_accounts_seq")
+    @SequenceGenerator(name = "loyalty_accounts_seq", sequenceName = "loyalty_accounts_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "customer_username", nullable = false, unique = true)
@@ -30,6 +31,9 @@ public class LoyaltyAccount {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
 
+    @Version
+    private Long version;
+
     public enum LoyaltyTier {
         BRONZE,  // 0-499 lifetime points
         SILVER,  // 500-1499 lifetime points
@@ -59,6 +63,9 @@ public class LoyaltyAccount {
     public LocalDateTime getUpdatedAt() { return updatedAt; }
     public void setUpdatedAt(LocalDateTime updatedAt) { this.updatedAt = updatedAt; }
 
+    public Long getVersion() { return version; }
+    public void setVersion(Long version) { this.version = version; }
+
     public void addPoints(int points) {
         this.pointsBalance += points;
         this.lifetimePoints += points;
@@ -66,6 +73,33 @@ public class LoyaltyAccount {
         updateTier();
     }
 
+    // Folds compacted ledger rows into the balance; lifetimePoints only counts what was earned
+    public void applyLedger(int balanceDelta, int lifetimeDelta) {
+        this.pointsBalance += balanceDelta;
+        this.lifetimePoints += lifetimeDelta;
+        this.updatedAt = LocalDateTime.now();
+        updateTier();
+    }
+
+    // Detached copy with ledger rows that haven't been compacted yet added on top; never persisted
+    public LoyaltyAccount withPending(int balanceDelta, int lifetimeDelta) {
+        return withTotals(pointsBalance + balanceDelta, lifetimePoints + lifetimeDelta);
+    }
+
+    // Detached copy with totals read elsewhere (ledger included); never persisted
+    public LoyaltyAccount withTotals(int pointsBalance, int lifetimePoints) {
+        LoyaltyAccount view = new LoyaltyAccount();
+        view.id = id;
+        view.customerUsername = customerUsername;
+        view.pointsBalance = pointsBalance;
+        view.lifetimePoints = lifetimePoints;
+        view.tier = tierFor(view.lifetimePoints);
+        view.createdAt = createdAt;
+        view.updatedAt = updatedAt;
+        view.version = version;
+        return view;
+    }
+
     public void redeemPoints(int points) {
         if (points > this.pointsBalance) {
             throw new RuntimeException("Insufficient points balance");
@@ -75,14 +109,18 @@ public class LoyaltyAccount {
     }
 
     private void updateTier() {
+        this.tier = tierFor(lifetimePoints);
+    }
+
+    public static LoyaltyTier tierFor(int lifetimePoints) {
         if (lifetimePoints >= 3000) {
-            this.tier = LoyaltyTier.PLATINUM;
+            return LoyaltyTier.PLATINUM;
         } else if (lifetimePoints >= 1500) {
-            this.tier = LoyaltyTier.GOLD;
+            return LoyaltyTier.GOLD;
         } else if (lifetimePoints >= 500) {
-            this.tier = LoyaltyTier.SILVER;
+            return LoyaltyTier.SILVER;
         } else {
-            this.tier = LoyaltyTier.BRONZE;
+            return LoyaltyTier.BRONZE;
         }
     }
 }
@@ -8,7 +8,8 @@ import java.time.LocalDateTime;
 public class LoyaltyTransaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loyalty_transactions_seq")
+    @SequenceGenerator(name = "loyalty_transactions_seq", sequenceName = "loyalty_transactions_id_seq", allocationSize = 50)
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
@@ -30,6 +31,10 @@ public class LoyaltyTransaction {
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
 
+    // Set once the points have been folded into the account balance
+    @Column(nullable = false)
+    private boolean compacted;
+
     public enum TransactionType {
         EARNED,    // Points earned from purchase
         REDEEMED,  // Points redeemed for reward
@@ -58,4 +63,7 @@ public class LoyaltyTransaction {
 
     public LocalDateTime getCreatedAt() { return createdAt; }
     public void setCreatedAt(LocalDateTime createdAt) { this.createdAt = createdAt; }
+
+    public boolean isCompacted() { return compacted; }
+    public void setCompacted(boolean compacted) { this.compacted = compacted; }
 }
@@ -1,10 +1,22 @@
 package com.coffeeshop.loyaltyservice.repo;
 
 import com.coffeeshop.loyaltyservice.model.LoyaltyAccount;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 
 import java.util.Optional;
 
 public interface LoyaltyAccountRepository extends JpaRepository<LoyaltyAccount, Long> {
     Optional<LoyaltyAccount> findByCustomerUsername(String username);
+
+    // Row lock held by compaction and redemption, which both rewrite the balance
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from LoyaltyAccount a where a.id = :id")
+    Optional<LoyaltyAccount> lockById(Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select a from LoyaltyAccount a where a.customerUsername = :username")
+    Optional<LoyaltyAccount> lockByCustomerUsername(String username);
 }
@@ -0,0 +1,102 @@
+package com.coffeeshop.loyaltyservice.repo;
+
+import com.coffeeshop.loyaltyservice.dto.LoyaltyHistoryPage;
+import com.coffeeshop.loyaltyservice.dto.LoyaltyTransactionView;
+import com.coffeeshop.loyaltyservice.model.LoyaltyTransaction.TransactionType;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@Repository
+public class LoyaltyHistoryRepository {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final RowMapper<LoyaltyTransactionView> VIEW_MAPPER = (rs, i) -> new LoyaltyTransactionView(
+            rs.getLong("id"),
+            rs.getObject("order_id", Long.class),
+            rs.getInt("points"),
+            TransactionType.valueOf(rs.getString("transaction_type")),
+            rs.getString("description"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public LoyaltyHistoryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Keyset pagination, newest first: the cursor is the (created_at, id) of the last row already returned,
+    // so every page is a range scan of the account's index entries however long its history is.
+    // A customer without an account simply has an empty history.
+    public LoyaltyHistoryPage findPage(String username, TransactionType type, LocalDateTime from, LocalDateTime to,
+                                       String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        StringBuilder sql = new StringBuilder("""
+                SELECT t.id, t.order_id, t.points, t.transaction_type, t.description, t.created_at
+                  FROM loyalty_transactions t
+                  JOIN loyalty_accounts a ON a.id = t.account_id
+                 WHERE a.customer_username = ?""");
+        List<Object> args = new ArrayList<>();
+        args.add(username);
+        if (type != null) {
+            sql.append(" AND t.transaction_type = ?");
+            args.add(type.name());
+        }
+        if (from != null) {
+            sql.append(" AND t.created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND t.created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor after = Cursor.decode(cursor);
+            sql.append(" AND (t.created_at, t.id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        // One extra row tells us whether there is a next page
+        sql.append(" ORDER BY t.created_at DESC, t.id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<LoyaltyTransactionView> rows = jdbcTemplate.query(sql.toString(), VIEW_MAPPER, args.toArray());
+        if (rows.size() <= pageSize) {
+            return new LoyaltyHistoryPage(rows, null);
+        }
+        List<LoyaltyTransactionView> page = rows.subList(0, pageSize);
+        LoyaltyTransactionView last = page.get(pageSize - 1);
+        return new LoyaltyHistoryPage(List.copyOf(page), new Cursor(last.createdAt(), last.id()).encode());
+    }
+
+    // Opaque to clients: base64url of "<created_at>|<id>"
+    record Cursor(LocalDateTime createdAt, long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                // The client's input, not our failure
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
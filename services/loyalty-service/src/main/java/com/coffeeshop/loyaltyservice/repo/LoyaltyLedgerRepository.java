@@ -0,0 +1,183 @@
+package com.coffeeshop.loyaltyservice.repo;
+
+import com.coffeeshop.loyaltyservice.model.LoyaltyAccount;
+import com.coffeeshop.loyaltyservice.model.LoyaltyTransaction;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.core.namedparam.SqlParameterSource;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+@Repository
+public class LoyaltyLedgerRepository {
+
+    // Concurrent first awards for a new customer race on the username; the loser's insert is a no-op
+    private static final String INSERT_ACCOUNT_SQL =
+            "INSERT INTO loyalty_accounts (id, customer_username) "
+                    + "VALUES (nextval('loyalty_accounts_id_seq'), :username) ON CONFLICT DO NOTHING";
+
+    private static final String ACCOUNTS_BY_USERNAME_SQL =
+            "SELECT id, customer_username, tier FROM loyalty_accounts WHERE customer_username IN (:usernames)";
+
+    private static final String AWARDED_ORDERS_SQL =
+            "SELECT order_id FROM loyalty_transactions WHERE transaction_type = 'EARNED' AND order_id IN (:orderIds)";
+
+    // One sequence call hands out a block of ID_BLOCK ids, ending at the returned value, the same way
+    // Hibernate's pooled optimizer reads it, so both can draw from the sequence without overlapping
+    private static final String ID_BLOCKS_SQL =
+            "SELECT nextval('loyalty_transactions_id_seq') FROM generate_series(1, :blocks)";
+    private static final int ID_BLOCK = 50;
+
+    private static final String INSERT_TRANSACTION_SQL =
+            "INSERT INTO loyalty_transactions (id, account_id, order_id, points, transaction_type, description, created_at, compacted) "
+                    + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String ACCOUNTS_WITH_PENDING_SQL =
+            "SELECT DISTINCT account_id FROM loyalty_transactions WHERE compacted = FALSE LIMIT :limit";
+
+    private static final String PENDING_SQL =
+            "SELECT id, points, transaction_type FROM loyalty_transactions WHERE account_id = :accountId AND compacted = FALSE";
+
+    // Account row and its uncompacted rows in one statement, so both come from the same snapshot
+    private static final String TOTALS_SQL =
+            "SELECT a.points_balance + COALESCE(SUM(t.points), 0) AS points_balance, "
+                    + "a.lifetime_points + COALESCE(SUM(CASE WHEN t.transaction_type IN ('EARNED', 'BONUS') AND t.points > 0 "
+                    + "THEN t.points ELSE 0 END), 0) AS lifetime_points "
+                    + "FROM loyalty_accounts a LEFT JOIN loyalty_transactions t ON t.account_id = a.id AND t.compacted = FALSE "
+                    + "WHERE a.id = :accountId GROUP BY a.points_balance, a.lifetime_points";
+
+    // The account row and the compacted flags of the given rows in one statement, so both come from the same
+    // snapshot: when none of the rows is compacted, none of them is in the account's totals yet
+    private static final String TOTALS_IF_PENDING_SQL =
+            "SELECT a.points_balance, a.lifetime_points, "
+                    + "(SELECT COUNT(*) FROM loyalty_transactions t WHERE t.compacted = TRUE AND t.id IN (:ids)) AS compacted "
+                    + "FROM loyalty_accounts a WHERE a.id = :accountId";
+
+    private static final String COMPACTED_IDS_SQL =
+            "SELECT id FROM loyalty_transactions WHERE compacted = TRUE AND id IN (:ids)";
+
+    private static final String MARK_COMPACTED_SQL =
+            "UPDATE loyalty_transactions SET compacted = TRUE WHERE id IN (:ids)";
+
+    public record PendingRow(long id, int points, String transactionType) {}
+
+    public record AccountRef(long id, String customerUsername, LoyaltyAccount.LoyaltyTier tier) {}
+
+    public record NewTransaction(long accountId, Long orderId, int points, LoyaltyTransaction.TransactionType type,
+                                 String description) {}
+
+    public record LedgerTotals(int pointsBalance, int lifetimePoints) {}
+
+    private final NamedParameterJdbcTemplate jdbc;
+
+    public LoyaltyLedgerRepository(NamedParameterJdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    public void insertAccountIfAbsent(String username) {
+        jdbc.update(INSERT_ACCOUNT_SQL, Map.of("username", username));
+    }
+
+    public void insertAccountsIfAbsent(Collection<String> usernames) {
+        jdbc.batchUpdate(INSERT_ACCOUNT_SQL, usernames.stream()
+                .map(u -> new MapSqlParameterSource("username", u))
+                .toArray(SqlParameterSource[]::new));
+    }
+
+    public Map<String, AccountRef> findAccounts(Collection<String> usernames) {
+        Map<String, AccountRef> accounts = new HashMap<>();
+        jdbc.query(ACCOUNTS_BY_USERNAME_SQL, Map.of("usernames", usernames), rs -> {
+            accounts.put(rs.getString("customer_username"), new AccountRef(rs.getLong("id"),
+                    rs.getString("customer_username"), LoyaltyAccount.LoyaltyTier.valueOf(rs.getString("tier"))));
+        });
+        return accounts;
+    }
+
+    public Set<Long> findAwardedOrderIds(Collection<Long> orderIds) {
+        return new HashSet<>(jdbc.queryForList(AWARDED_ORDERS_SQL, Map.of("orderIds", orderIds), Long.class));
+    }
+
+    // All rows in one JDBC batch, appended uncompacted like single awards; returns their ids in row order
+    public List<Long> insertTransactions(List<NewTransaction> rows) {
+        List<Long> ids = allocateTransactionIds(rows.size());
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbc.getJdbcTemplate().batchUpdate(INSERT_TRANSACTION_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                NewTransaction row = rows.get(i);
+                ps.setLong(1, ids.get(i));
+                ps.setLong(2, row.accountId());
+                ps.setObject(3, row.orderId(), Types.BIGINT);
+                ps.setInt(4, row.points());
+                ps.setString(5, row.type().name());
+                ps.setString(6, row.description());
+                ps.setTimestamp(7, now);
+                ps.setBoolean(8, false);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        });
+        return ids;
+    }
+
+    private List<Long> allocateTransactionIds(int count) {
+        // one spare block: a fresh sequence starts at 1, whose block is mostly below 1
+        int blocks = (count + ID_BLOCK - 1) / ID_BLOCK + 1;
+        List<Long> ids = new ArrayList<>(blocks * ID_BLOCK);
+        for (Long hi : jdbc.queryForList(ID_BLOCKS_SQL, Map.of("blocks", blocks), Long.class)) {
+            for (long id = Math.max(1, hi - ID_BLOCK + 1); id <= hi && ids.size() < count; id++) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    public List<Long> findAccountsWithPending(int limit) {
+        return jdbc.queryForList(ACCOUNTS_WITH_PENDING_SQL, Map.of("limit", limit), Long.class);
+    }
+
+    public List<PendingRow> findPending(Long accountId) {
+        return jdbc.query(PENDING_SQL, Map.of("accountId", accountId),
+                (rs, i) -> new PendingRow(rs.getLong("id"), rs.getInt("points"), rs.getString("transaction_type")));
+    }
+
+    // Balance and lifetime points with every row written so far, compacted or not, by any instance
+    public LedgerTotals findTotals(Long accountId) {
+        return jdbc.queryForObject(TOTALS_SQL, Map.of("accountId", accountId),
+                (rs, i) -> new LedgerTotals(rs.getInt("points_balance"), rs.getInt("lifetime_points")));
+    }
+
+    // The account's compacted totals, or empty when any of the given rows has already been folded into them
+    public Optional<LedgerTotals> findTotalsIfPending(Long accountId, Collection<Long> ids) {
+        List<LedgerTotals> totals = jdbc.query(TOTALS_IF_PENDING_SQL,
+                new MapSqlParameterSource("accountId", accountId).addValue("ids", ids),
+                (rs, i) -> rs.getInt("compacted") > 0 ? null
+                        : new LedgerTotals(rs.getInt("points_balance"), rs.getInt("lifetime_points")));
+        return totals.isEmpty() ? Optional.empty() : Optional.ofNullable(totals.get(0));
+    }
+
+    public List<Long> findCompactedIds(Collection<Long> ids) {
+        return jdbc.queryForList(COMPACTED_IDS_SQL, new MapSqlParameterSource("ids", ids), Long.class);
+    }
+
+    public void markCompacted(List<Long> ids) {
+        jdbc.update(MARK_COMPACTED_SQL, new MapSqlParameterSource("ids", ids));
+    }
+}
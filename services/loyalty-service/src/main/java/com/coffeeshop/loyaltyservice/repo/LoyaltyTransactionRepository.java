@@ -6,6 +6,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import java.util.List;
 
 public interface LoyaltyTransactionRepository extends JpaRepository<LoyaltyTransaction, Long> {
-    List<LoyaltyTransaction> findByAccountIdOrderByCreatedAtDesc(Long accountId);
     List<LoyaltyTransaction> findByOrderId(Long orderId);
+    boolean existsByOrderIdAndTransactionType(Long orderId, LoyaltyTransaction.TransactionType transactionType);
 }
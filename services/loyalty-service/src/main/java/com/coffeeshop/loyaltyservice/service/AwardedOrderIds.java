@@ -0,0 +1,34 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+// LRU of orders whose points this instance has seen committed, so a redelivered event is dropped
+// without a database round trip. A miss proves nothing; the unique (order_id, transaction_type) index decides.
+@Component
+public class AwardedOrderIds {
+
+    private final Set<Long> recent;
+
+    public AwardedOrderIds(@Value("${loyalty.dedup.capacity:100000}") int capacity) {
+        this.recent = Collections.newSetFromMap(Collections.synchronizedMap(new LinkedHashMap<>(1024, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Boolean> eldest) {
+                return size() > capacity;
+            }
+        }));
+    }
+
+    public boolean contains(Long orderId) {
+        return recent.contains(orderId);
+    }
+
+    public void add(Long orderId) {
+        recent.add(orderId);
+    }
+}
@@ -0,0 +1,100 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import com.coffeeshop.loyaltyservice.model.LoyaltyAccount;
+import com.coffeeshop.loyaltyservice.model.LoyaltyTransaction.TransactionType;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyAccountRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository.PendingRow;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Folds appended ledger rows into LoyaltyAccount balances and tiers, one account per transaction
+@Service
+public class LedgerCompactionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(LedgerCompactionService.class);
+
+    private final LoyaltyAccountRepository accountRepository;
+    private final LoyaltyLedgerRepository ledgerRepository;
+    private final PendingPointsAccumulator accumulator;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+
+    public LedgerCompactionService(LoyaltyAccountRepository accountRepository,
+                                   LoyaltyLedgerRepository ledgerRepository,
+                                   PendingPointsAccumulator accumulator,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${loyalty.ledger.compaction-batch-size:500}") int batchSize) {
+        this.accountRepository = accountRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.accumulator = accumulator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+    }
+
+    @Scheduled(fixedDelayString = "${loyalty.ledger.compaction-interval-ms:2000}")
+    public void compactPending() {
+        List<Long> accountIds;
+        do {
+            accountIds = ledgerRepository.findAccountsWithPending(batchSize);
+            for (Long accountId : accountIds) {
+                transactionTemplate.executeWithoutResult(status ->
+                        accountRepository.lockById(accountId).ifPresent(this::compact));
+            }
+        } while (accountIds.size() == batchSize);
+        accumulator.pruneCompactedElsewhere(ledgerRepository::findCompactedIds);
+    }
+
+    // Caller must hold the account's row lock (lockById / lockByCustomerUsername) in the current transaction
+    public void compact(LoyaltyAccount account) {
+        List<PendingRow> rows = ledgerRepository.findPending(account.getId());
+        if (rows.isEmpty()) {
+            return;
+        }
+        int balanceDelta = 0;
+        int lifetimeDelta = 0;
+        List<Long> ids = new ArrayList<>(rows.size());
+        for (PendingRow row : rows) {
+            ids.add(row.id());
+            balanceDelta += row.points();
+            lifetimeDelta += lifetimePoints(TransactionType.valueOf(row.transactionType()), row.points());
+        }
+        ledgerRepository.markCompacted(ids);
+        account.applyLedger(balanceDelta, lifetimeDelta);
+
+        Long accountId = account.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            // A transaction that rolls back before its commit (e.g. a rejected redemption) never began
+            private boolean committing;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                accumulator.beginCompaction(accountId);
+                committing = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (committing) {
+                    accumulator.endCompaction(accountId, status == STATUS_COMMITTED ? ids : List.of());
+                }
+            }
+        });
+        logger.debug("Compacted {} ledger rows into account {}: {} points", ids.size(), accountId, balanceDelta);
+    }
+
+    // Only points coming in count towards tiers
+    static int lifetimePoints(TransactionType type, int points) {
+        return (type == TransactionType.EARNED || type == TransactionType.BONUS) && points > 0 ? points : 0;
+    }
+}
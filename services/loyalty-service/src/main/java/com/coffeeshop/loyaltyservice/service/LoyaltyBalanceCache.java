@@ -0,0 +1,48 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import com.coffeeshop.loyaltyservice.dto.LoyaltyBalance;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+// Balances served to the frontend's polling, dropped whenever this instance changes an account.
+// Changes made through other instances show up when the entry expires.
+@Component
+public class LoyaltyBalanceCache {
+
+    private final Cache<String, LoyaltyBalance> cache;
+    private final Counter invalidations;
+
+    public LoyaltyBalanceCache(MeterRegistry meterRegistry,
+                               @Value("${loyalty.balance-cache.ttl:PT30S}") Duration ttl,
+                               @Value("${loyalty.balance-cache.max-size:100000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        // Exposes cache.gets{result=hit|miss}, cache.evictions, cache.size under cache=loyalty.balances
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "loyalty.balances");
+        this.invalidations = Counter.builder("loyalty.balances.cache.invalidations")
+                .description("Balance cache entries dropped because the account changed on this instance")
+                .register(meterRegistry);
+    }
+
+    // An invalidation that races the load waits for it and then drops what it loaded
+    public LoyaltyBalance get(String username, Function<String, LoyaltyBalance> loader) {
+        return cache.get(username, loader);
+    }
+
+    public void invalidateAll(Collection<String> usernames) {
+        cache.invalidateAll(usernames);
+        invalidations.increment(usernames.size());
+    }
+}
@@ -1,16 +1,34 @@
 package com.coffeeshop.loyaltyservice.service;
 
+import com.coffeeshop.loyaltyservice.dto.LoyaltyBalance;
+import com.coffeeshop.loyaltyservice.dto.LoyaltyHistoryPage;
+import com.coffeeshop.loyaltyservice.event.PaymentProcessedEvent;
 import com.coffeeshop.loyaltyservice.model.LoyaltyAccount;
 import com.coffeeshop.loyaltyservice.model.LoyaltyTransaction;
 import com.coffeeshop.loyaltyservice.repo.LoyaltyAccountRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyHistoryRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository.AccountRef;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository.LedgerTotals;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository.NewTransaction;
 import com.coffeeshop.loyaltyservice.repo.LoyaltyTransactionRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
 
 @Service
 public class LoyaltyService {
@@ -18,43 +36,124 @@ public class LoyaltyService {
     private static final Logger logger = LoggerFactory.getLogger(LoyaltyService.class);
     private static final int POINTS_PER_DOLLAR = 1;
     private static final int POINTS_TO_DOLLAR_RATIO = 100; // 100 points = $1
+    private static final int VIEW_READ_ATTEMPTS = 3;
 
     private final LoyaltyAccountRepository accountRepository;
     private final LoyaltyTransactionRepository transactionRepository;
+    private final LoyaltyLedgerRepository ledgerRepository;
+    private final LoyaltyHistoryRepository historyRepository;
+    private final LedgerCompactionService compactionService;
+    private final PendingPointsAccumulator accumulator;
+    private final AwardedOrderIds awardedOrderIds;
+    private final LoyaltyBalanceCache balanceCache;
 
     public LoyaltyService(LoyaltyAccountRepository accountRepository,
-                          LoyaltyTransactionRepository transactionRepository) {
+                          LoyaltyTransactionRepository transactionRepository,
+                          LoyaltyLedgerRepository ledgerRepository,
+                          LoyaltyHistoryRepository historyRepository,
+                          LedgerCompactionService compactionService,
+                          PendingPointsAccumulator accumulator,
+                          AwardedOrderIds awardedOrderIds,
+                          LoyaltyBalanceCache balanceCache) {
         this.accountRepository = accountRepository;
         this.transactionRepository = transactionRepository;
+        this.ledgerRepository = ledgerRepository;
+        this.historyRepository = historyRepository;
+        this.compactionService = compactionService;
+        this.accumulator = accumulator;
+        this.awardedOrderIds = awardedOrderIds;
+        this.balanceCache = balanceCache;
     }
 
     public LoyaltyAccount getOrCreateAccount(String username) {
         return accountRepository.findByCustomerUsername(username)
                 .orElseGet(() -> {
-                    LoyaltyAccount newAccount = new LoyaltyAccount();
-                    newAccount.setCustomerUsername(username);
-                    return accountRepository.save(newAccount);
+                    ledgerRepository.insertAccountIfAbsent(username);
+                    return accountRepository.findByCustomerUsername(username).orElseThrow();
                 });
     }
 
+    // The compacted account plus ledger rows this instance has written since the last compaction.
+    // Retried while a compaction of the account commits, so no row is counted both in the account
+    // row and as pending, or in neither; after a few tries the totals come from the database in one
+    // statement instead, so a request thread never waits on a compaction. Another instance may have
+    // compacted pending rows too: the account totals are read together with their flags, and rows
+    // found compacted are pruned before the retry. Reads never create the account: a customer
+    // without one gets an empty, unsaved view.
+    public LoyaltyAccount getAccountView(String username) {
+        Long accountId = accumulator.accountId(username);
+        if (accountId == null) {
+            return findOrEmpty(username);
+        }
+        for (int attempt = 0; attempt < VIEW_READ_ATTEMPTS; attempt++) {
+            PendingPointsAccumulator.Stamp before = accumulator.stamp(accountId);
+            if (before.stable()) {
+                int balance = accumulator.pendingBalance(accountId);
+                int lifetime = accumulator.pendingLifetime(accountId);
+                // Read after the counters, so every row counted in them is checked
+                List<Long> pendingIds = accumulator.pendingIds(accountId);
+                LoyaltyAccount account = findOrEmpty(username);
+                LoyaltyAccount view = null;
+                if (pendingIds.isEmpty()) {
+                    view = account.withPending(balance, lifetime);
+                } else {
+                    Optional<LedgerTotals> compacted = ledgerRepository.findTotalsIfPending(accountId, pendingIds);
+                    if (compacted.isPresent()) {
+                        view = account.withTotals(compacted.get().pointsBalance() + balance,
+                                compacted.get().lifetimePoints() + lifetime);
+                    } else {
+                        accumulator.pruneCompacted(accountId, ledgerRepository.findCompactedIds(pendingIds));
+                    }
+                }
+                if (view != null && accumulator.stamp(accountId).equals(before)) {
+                    return view;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        LoyaltyAccount account = findOrEmpty(username);
+        LedgerTotals totals = ledgerRepository.findTotals(accountId);
+        return account.withTotals(totals.pointsBalance(), totals.lifetimePoints());
+    }
+
+    // Cached per instance: one account query on a miss, none on a hit
+    public LoyaltyBalance getBalance(String username) {
+        return balanceCache.get(username, u -> {
+            LoyaltyAccount view = getAccountView(u);
+            return new LoyaltyBalance(view.getPointsBalance(), view.getTier(), view.getLifetimePoints(),
+                    redeemableValue(view.getPointsBalance()));
+        });
+    }
+
+    private LoyaltyAccount findOrEmpty(String username) {
+        return accountRepository.findByCustomerUsername(username).orElseGet(() -> {
+            LoyaltyAccount empty = new LoyaltyAccount();
+            empty.setCustomerUsername(username);
+            return empty;
+        });
+    }
+
     public LoyaltyAccount getAccount(String username) {
         return accountRepository.findByCustomerUsername(username)
                 .orElseThrow(() -> new RuntimeException("Loyalty account not found for user: " + username));
     }
 
+    // Append-only: the award is one ledger row and the account row is left alone until compaction,
+    // so concurrent awards for the same customer neither conflict nor lose points.
+    // Empty when the order was already awarded; a race that slips past both checks fails the commit
+    // with a DataIntegrityViolationException from the unique (order_id, transaction_type) index.
     @Transactional
-    public LoyaltyTransaction awardPoints(String username, Long orderId, BigDecimal orderAmount) {
+    public Optional<LoyaltyTransaction> awardPoints(String username, Long orderId, BigDecimal orderAmount) {
+        if (orderId != null && (awardedOrderIds.contains(orderId)
+                || transactionRepository.existsByOrderIdAndTransactionType(orderId, LoyaltyTransaction.TransactionType.EARNED))) {
+            awardedOrderIds.add(orderId);
+            logger.info("Points for order {} were already awarded, skipping", orderId);
+            return Optional.empty();
+        }
         LoyaltyAccount account = getOrCreateAccount(username);
         
-        // Calculate points: 1 point per $1 spent
-        int pointsEarned = orderAmount.multiply(BigDecimal.valueOf(POINTS_PER_DOLLAR)).intValue();
-        
-        // Apply tier bonus
-        double tierMultiplier = getTierMultiplier(account.getTier());
-        pointsEarned = (int) (pointsEarned * tierMultiplier);
-        
-        account.addPoints(pointsEarned);
-        accountRepository.save(account);
+        // Tier bonus uses the tier as of the last compaction
+        int pointsEarned = pointsFor(orderAmount, account.getTier());
         
         // Create transaction record
         LoyaltyTransaction transaction = new LoyaltyTransaction();
@@ -62,27 +161,120 @@ public class LoyaltyService {
         transaction.setOrderId(orderId);
         transaction.setPoints(pointsEarned);
         transaction.setTransactionType(LoyaltyTransaction.TransactionType.EARNED);
-        transaction.setDescription(String.format("Earned %d points for order #%d (%.1fx tier bonus)", 
-                pointsEarned, orderId, tierMultiplier));
+        transaction.setDescription(earnedDescription(pointsEarned, orderId, account.getTier()));
         
         LoyaltyTransaction saved = transactionRepository.save(transaction);
+        trackPending(List.of(new PendingAward(account.getId(), username, saved.getId(), pointsEarned, pointsEarned)));
+        evictBalancesAfterCommit(List.of(username));
+        if (orderId != null) {
+            rememberAfterCommit(List.of(orderId));
+        }
         
-        logger.info("Awarded {} points to user {} for order {}. New balance: {}, Tier: {}", 
-                pointsEarned, username, orderId, account.getPointsBalance(), account.getTier());
+        logger.info("Awarded {} points to user {} for order {}", pointsEarned, username, orderId);
         
-        return saved;
+        return Optional.of(saved);
+    }
+
+    // A whole poll of successful payments in four statements whatever its size: the ledger check for
+    // already-awarded orders, one IN query for the accounts (plus one batch insert and re-read for new
+    // customers), the id allocation and one batch of ledger rows. Like awardPoints it only appends: the
+    // rows count as pending here until compaction folds them in, so a batch never locks account rows.
+    @Transactional
+    public int awardPointsBatch(List<PaymentProcessedEvent> payments) {
+        Map<Long, PaymentProcessedEvent> byOrder = new LinkedHashMap<>();
+        for (PaymentProcessedEvent payment : payments) {
+            Long orderId = payment.getOrderId();
+            if (orderId != null && !awardedOrderIds.contains(orderId)) {
+                byOrder.putIfAbsent(orderId, payment);
+            }
+        }
+        if (byOrder.isEmpty()) {
+            return 0;
+        }
+        Set<Long> alreadyAwarded = ledgerRepository.findAwardedOrderIds(byOrder.keySet());
+        alreadyAwarded.forEach(awardedOrderIds::add);
+        byOrder.keySet().removeAll(alreadyAwarded);
+        if (byOrder.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> usernames = new TreeSet<>();
+        byOrder.values().forEach(p -> usernames.add(p.getCustomerUsername()));
+        Map<String, AccountRef> accounts = ledgerRepository.findAccounts(usernames);
+        if (accounts.size() < usernames.size()) {
+            List<String> missing = usernames.stream().filter(u -> !accounts.containsKey(u)).toList();
+            ledgerRepository.insertAccountsIfAbsent(missing);
+            accounts.putAll(ledgerRepository.findAccounts(missing));
+        }
+
+        List<NewTransaction> rows = new ArrayList<>(byOrder.size());
+        List<String> rowUsernames = new ArrayList<>(byOrder.size());
+        for (PaymentProcessedEvent payment : byOrder.values()) {
+            AccountRef account = accounts.get(payment.getCustomerUsername());
+            int points = pointsFor(payment.getAmount(), account.tier());
+            rows.add(new NewTransaction(account.id(), payment.getOrderId(), points,
+                    LoyaltyTransaction.TransactionType.EARNED, earnedDescription(points, payment.getOrderId(), account.tier())));
+            rowUsernames.add(account.customerUsername());
+        }
+        List<Long> ids = ledgerRepository.insertTransactions(rows);
+        List<PendingAward> pending = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            NewTransaction row = rows.get(i);
+            pending.add(new PendingAward(row.accountId(), rowUsernames.get(i), ids.get(i), row.points(), row.points()));
+        }
+        trackPending(pending);
+        rememberAfterCommit(byOrder.keySet());
+        evictBalancesAfterCommit(usernames);
+
+        logger.info("Awarded points for {} orders across {} accounts ({} duplicates skipped)",
+                rows.size(), usernames.size(), payments.size() - rows.size());
+        return rows.size();
+    }
+
+    // 1 point per $1 spent, times the tier bonus
+    private int pointsFor(BigDecimal orderAmount, LoyaltyAccount.LoyaltyTier tier) {
+        int points = orderAmount.multiply(BigDecimal.valueOf(POINTS_PER_DOLLAR)).intValue();
+        return (int) (points * getTierMultiplier(tier));
+    }
+
+    private String earnedDescription(int points, Long orderId, LoyaltyAccount.LoyaltyTier tier) {
+        return String.format("Earned %d points for order #%d (%.1fx tier bonus)", points, orderId, getTierMultiplier(tier));
+    }
+
+    // After commit, so a balance loaded concurrently from the old rows can't be cached past the change
+    private void evictBalancesAfterCommit(Collection<String> usernames) {
+        List<String> evicted = List.copyOf(usernames);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                balanceCache.invalidateAll(evicted);
+            }
+        });
+    }
+
+    private void rememberAfterCommit(Collection<Long> orderIds) {
+        List<Long> ids = List.copyOf(orderIds);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                ids.forEach(awardedOrderIds::add);
+            }
+        });
     }
 
+    // Spending has to see every earned point, so it locks the account, compacts what is pending and
+    // records the redemption as already compacted
     @Transactional
     public LoyaltyTransaction redeemPoints(String username, int points, String description) {
-        LoyaltyAccount account = getAccount(username);
+        LoyaltyAccount account = accountRepository.lockByCustomerUsername(username)
+                .orElseThrow(() -> new RuntimeException("Loyalty account not found for user: " + username));
+        compactionService.compact(account);
         
         if (points > account.getPointsBalance()) {
             throw new RuntimeException("Insufficient points. Available: " + account.getPointsBalance());
         }
         
         account.redeemPoints(points);
-        accountRepository.save(account);
         
         // Create transaction record
         LoyaltyTransaction transaction = new LoyaltyTransaction();
@@ -90,8 +282,10 @@ public class LoyaltyService {
         transaction.setPoints(-points);
         transaction.setTransactionType(LoyaltyTransaction.TransactionType.REDEEMED);
         transaction.setDescription(description != null ? description : "Points redeemed");
+        transaction.setCompacted(true);
         
         LoyaltyTransaction saved = transactionRepository.save(transaction);
+        evictBalancesAfterCommit(List.of(username));
         
         logger.info("Redeemed {} points for user {}. New balance: {}", 
                 points, username, account.getPointsBalance());
@@ -99,15 +293,35 @@ public class LoyaltyService {
         return saved;
     }
 
-    public List<LoyaltyTransaction> getTransactionHistory(String username) {
-        LoyaltyAccount account = getAccount(username);
-        return transactionRepository.findByAccountIdOrderByCreatedAtDesc(account.getId());
+    public LoyaltyHistoryPage getTransactionHistory(String username, LoyaltyTransaction.TransactionType type,
+                                                    LocalDateTime from, LocalDateTime to, String cursor, int limit) {
+        return historyRepository.findPage(username, type, from, to, cursor, limit);
     }
 
     public BigDecimal getRedeemableValue(String username) {
-        LoyaltyAccount account = getAccount(username);
-        return BigDecimal.valueOf(account.getPointsBalance())
-                .divide(BigDecimal.valueOf(POINTS_TO_DOLLAR_RATIO));
+        return getBalance(username).redeemableValue();
+    }
+
+    private static BigDecimal redeemableValue(int points) {
+        return BigDecimal.valueOf(points).divide(BigDecimal.valueOf(POINTS_TO_DOLLAR_RATIO));
+    }
+
+    private record PendingAward(Long accountId, String username, Long transactionId, int points, int lifetimePoints) {}
+
+    private void trackPending(List<PendingAward> awards) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                awards.forEach(a -> accumulator.add(a.accountId(), a.username(), a.transactionId(), a.points(), a.lifetimePoints()));
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    awards.forEach(a -> accumulator.remove(a.accountId(), a.transactionId()));
+                }
+            }
+        });
     }
 
     private double getTierMultiplier(LoyaltyAccount.LoyaltyTier tier) {
@@ -0,0 +1,133 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+// Ledger rows committed by this instance that compaction hasn't folded into the account yet, so balance
+// reads don't have to sum the ledger. Counters are striped (LongAdder), so a burst of awards for one hot
+// account doesn't contend on a single value. Rows written by other instances show up once compacted.
+// Another instance may also compact rows counted here; they stay until pruned, so readers must check.
+@Component
+public class PendingPointsAccumulator {
+
+    private record Entry(int points, int lifetimePoints) {}
+
+    private static final class Pending {
+        final Map<Long, Entry> entries = new ConcurrentHashMap<>();
+        final LongAdder balance = new LongAdder();
+        final LongAdder lifetime = new LongAdder();
+        // Compactions of the account in flight, and how many have finished; readers retry when either moves
+        final AtomicInteger compacting = new AtomicInteger();
+        final AtomicLong compactions = new AtomicLong();
+    }
+
+    // A consistent (snapshot + pending) read is only possible between compactions; see LoyaltyService.getAccountView
+    public record Stamp(long compactions, boolean stable) {}
+
+    private final Map<Long, Pending> byAccount = new ConcurrentHashMap<>();
+    private final Map<String, Long> accountIds = new ConcurrentHashMap<>();
+
+    // Called just before the ledger row commits, so compaction can't fold the row before it is counted here;
+    // remove() takes it back out if the commit fails
+    public void add(Long accountId, String username, Long transactionId, int points, int lifetimePoints) {
+        accountIds.put(username, accountId);
+        Pending pending = pending(accountId);
+        if (pending.entries.putIfAbsent(transactionId, new Entry(points, lifetimePoints)) == null) {
+            pending.balance.add(points);
+            pending.lifetime.add(lifetimePoints);
+        }
+    }
+
+    public void remove(Long accountId, Long transactionId) {
+        subtract(pending(accountId), List.of(transactionId));
+    }
+
+    // Null when this instance never wrote a ledger row for the customer
+    public Long accountId(String username) {
+        return accountIds.get(username);
+    }
+
+    // Called before the compaction commits...
+    public void beginCompaction(Long accountId) {
+        pending(accountId).compacting.incrementAndGet();
+    }
+
+    // ...and after it completes, with the folded row ids, or none when it rolled back.
+    // Ids this instance never added (written elsewhere) are simply not found.
+    public void endCompaction(Long accountId, Collection<Long> transactionIds) {
+        Pending pending = pending(accountId);
+        subtract(pending, transactionIds);
+        pending.compactions.incrementAndGet();
+        pending.compacting.decrementAndGet();
+    }
+
+    public Stamp stamp(Long accountId) {
+        Pending pending = byAccount.get(accountId);
+        return pending == null ? new Stamp(0, true)
+                : new Stamp(pending.compactions.get(), pending.compacting.get() == 0);
+    }
+
+    public int pendingBalance(Long accountId) {
+        Pending pending = byAccount.get(accountId);
+        return pending == null ? 0 : pending.balance.intValue();
+    }
+
+    public int pendingLifetime(Long accountId) {
+        Pending pending = byAccount.get(accountId);
+        return pending == null ? 0 : pending.lifetime.intValue();
+    }
+
+    // Ids of the rows counted in pendingBalance / pendingLifetime when read before this
+    public List<Long> pendingIds(Long accountId) {
+        Pending pending = byAccount.get(accountId);
+        return pending == null ? List.of() : List.copyOf(pending.entries.keySet());
+    }
+
+    // Drops rows that another instance compacted; compactedIds returns which of the given ids are compacted
+    public void pruneCompactedElsewhere(Function<Collection<Long>, Collection<Long>> compactedIds) {
+        List<Long> ids = new ArrayList<>();
+        byAccount.values().forEach(p -> ids.addAll(p.entries.keySet()));
+        if (ids.isEmpty()) {
+            return;
+        }
+        Set<Long> compacted = new HashSet<>(compactedIds.apply(ids));
+        if (compacted.isEmpty()) {
+            return;
+        }
+        byAccount.forEach((accountId, pending) -> pruneCompacted(accountId,
+                pending.entries.keySet().stream().filter(compacted::contains).toList()));
+    }
+
+    // Same for one account, with ids already known to be compacted; counts as a compaction for readers
+    public void pruneCompacted(Long accountId, Collection<Long> compactedIds) {
+        if (!compactedIds.isEmpty()) {
+            beginCompaction(accountId);
+            endCompaction(accountId, compactedIds);
+        }
+    }
+
+    private Pending pending(Long accountId) {
+        return byAccount.computeIfAbsent(accountId, id -> new Pending());
+    }
+
+    private static void subtract(Pending pending, Collection<Long> transactionIds) {
+        for (Long id : transactionIds) {
+            Entry entry = pending.entries.remove(id);
+            if (entry != null) {
+                pending.balance.add(-entry.points());
+                pending.lifetime.add(-entry.lifetimePoints());
+            }
+        }
+    }
+}
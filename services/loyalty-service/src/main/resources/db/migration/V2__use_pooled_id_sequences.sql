@@ -0,0 +1,6 @@
+-- Ids are taken from these sequences in blocks of 50 (allocationSize), which lets Hibernate batch inserts
+CREATE SEQUENCE IF NOT EXISTS loyalty_accounts_id_seq;
+CREATE SEQUENCE IF NOT EXISTS loyalty_transactions_id_seq;
+
+ALTER SEQUENCE loyalty_accounts_id_seq INCREMENT BY 50;
+ALTER SEQUENCE loyalty_transactions_id_seq INCREMENT BY 50;
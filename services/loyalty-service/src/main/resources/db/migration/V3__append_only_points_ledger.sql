@@ -0,0 +1,8 @@
+-- Awards only append to loyalty_transactions; a compaction job folds pending rows into the account row
+ALTER TABLE loyalty_accounts ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE loyalty_transactions ADD COLUMN compacted BOOLEAN NOT NULL DEFAULT FALSE;
+
+-- Everything recorded so far is already reflected in the balances
+UPDATE loyalty_transactions SET compacted = TRUE;
+
+CREATE INDEX idx_loyalty_transactions_pending ON loyalty_transactions(compacted, account_id);
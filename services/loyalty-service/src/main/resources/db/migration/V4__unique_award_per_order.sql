@@ -0,0 +1,28 @@
+-- Redelivered payment events could award the same order twice. Take the extra rows' points back out of
+-- the balances (pending rows were never added), drop them, then allow one row per order and type.
+UPDATE loyalty_accounts a SET
+    points_balance = points_balance - (
+        SELECT COALESCE(SUM(t.points), 0) FROM loyalty_transactions t
+        WHERE t.account_id = a.id AND t.compacted = TRUE AND t.order_id IS NOT NULL
+          AND EXISTS (SELECT 1 FROM loyalty_transactions k
+                      WHERE k.order_id = t.order_id AND k.transaction_type = t.transaction_type AND k.id < t.id)),
+    lifetime_points = lifetime_points - (
+        SELECT COALESCE(SUM(t.points), 0) FROM loyalty_transactions t
+        WHERE t.account_id = a.id AND t.compacted = TRUE AND t.order_id IS NOT NULL AND t.points > 0
+          AND t.transaction_type IN ('EARNED', 'BONUS')
+          AND EXISTS (SELECT 1 FROM loyalty_transactions k
+                      WHERE k.order_id = t.order_id AND k.transaction_type = t.transaction_type AND k.id < t.id));
+
+UPDATE loyalty_accounts SET tier = CASE
+    WHEN lifetime_points >= 3000 THEN 'PLATINUM'
+    WHEN lifetime_points >= 1500 THEN 'GOLD'
+    WHEN lifetime_points >= 500 THEN 'SILVER'
+    ELSE 'BRONZE' END;
+
+DELETE FROM loyalty_transactions t
+WHERE t.order_id IS NOT NULL
+  AND EXISTS (SELECT 1 FROM loyalty_transactions k
+              WHERE k.order_id = t.order_id AND k.transaction_type = t.transaction_type AND k.id < t.id);
+
+-- Rows without an order (redemptions, manual bonuses) are not constrained: NULLs never collide
+CREATE UNIQUE INDEX uq_loyalty_transactions_order_type ON loyalty_transactions(order_id, transaction_type);
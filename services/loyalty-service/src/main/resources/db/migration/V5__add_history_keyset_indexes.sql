@@ -0,0 +1,5 @@
+-- Keyset pagination of an account's history over (created_at, id), newest first, optionally narrowed by type
+CREATE INDEX idx_loyalty_transactions_account_created_at_id ON loyalty_transactions (account_id, created_at DESC, id DESC);
+CREATE INDEX idx_loyalty_transactions_account_type_created_at_id
+    ON loyalty_transactions (account_id, transaction_type, created_at DESC, id DESC);
+
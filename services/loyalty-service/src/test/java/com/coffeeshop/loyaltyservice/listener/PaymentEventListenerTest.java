@@ -0,0 +1,55 @@
+package com.coffeeshop.loyaltyservice.listener;
+
+import com.coffeeshop.loyaltyservice.event.InvalidPaymentEventException;
+import com.coffeeshop.loyaltyservice.event.PaymentProcessedEvent;
+import com.coffeeshop.loyaltyservice.service.LoyaltyService;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.Acknowledgment;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PaymentEventListenerTest {
+
+    private final LoyaltyService loyaltyService = mock(LoyaltyService.class);
+    private final Acknowledgment ack = mock(Acknowledgment.class);
+    private final PaymentEventListener listener = new PaymentEventListener(loyaltyService);
+
+    @Test
+    void awardsSuccessfulPaymentsAndAcknowledges() {
+        PaymentProcessedEvent paid = payment(1L, "alice", "COMPLETED");
+        listener.handlePaymentsProcessed(List.of(paid, payment(2L, "bob", "FAILED")), ack);
+
+        verify(loyaltyService).awardPointsBatch(List.of(paid));
+        verify(ack).acknowledge();
+    }
+
+    @Test
+    void invalidEventFailsOnlyItself() {
+        PaymentProcessedEvent first = payment(1L, "alice", "COMPLETED");
+        PaymentProcessedEvent noCustomer = payment(2L, null, "COMPLETED");
+
+        assertThatThrownBy(() -> listener.handlePaymentsProcessed(
+                List.of(first, payment(3L, null, "FAILED"), noCustomer, payment(4L, "bob", "COMPLETED")), ack))
+                .isInstanceOfSatisfying(BatchListenerFailedException.class, e -> {
+                    assertThat(e.getIndex()).isEqualTo(2);
+                    assertThat(e.getCause()).isInstanceOf(InvalidPaymentEventException.class);
+                });
+
+        // What came before the bad event is awarded; the rest is left for redelivery
+        verify(loyaltyService).awardPointsBatch(List.of(first));
+        verify(ack, never()).acknowledge();
+    }
+
+    private static PaymentProcessedEvent payment(Long orderId, String username, String status) {
+        return new PaymentProcessedEvent(orderId, username, BigDecimal.TEN, "CARD", status, LocalDateTime.now());
+    }
+}
@@ -0,0 +1,109 @@
+package com.coffeeshop.loyaltyservice.repo;
+
+import com.coffeeshop.loyaltyservice.dto.LoyaltyHistoryPage;
+import com.coffeeshop.loyaltyservice.dto.LoyaltyTransactionView;
+import com.coffeeshop.loyaltyservice.model.LoyaltyTransaction.TransactionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loyalty-history;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(LoyaltyHistoryRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoyaltyHistoryRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Autowired
+    private LoyaltyHistoryRepository historyRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM loyalty_transactions");
+        jdbcTemplate.update("DELETE FROM loyalty_accounts");
+        jdbcTemplate.update("INSERT INTO loyalty_accounts (id, customer_username) VALUES (1, 'alice'), (2, 'bob')");
+        // 25 rows for alice, every fifth a redemption, with pairs sharing a timestamp so ids break the ties
+        for (int i = 1; i <= 25; i++) {
+            insert(i, 1, i % 5 == 0 ? TransactionType.REDEEMED : TransactionType.EARNED, START.plusHours(i / 2));
+        }
+        insert(26, 2, TransactionType.EARNED, START);
+    }
+
+    @Test
+    void pagesWalkTheWholeHistoryNewestFirstWithoutGapsOrRepeats() {
+        List<Long> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            LoyaltyHistoryPage page = historyRepository.findPage("alice", null, null, null, cursor, 7);
+            page.transactions().forEach(t -> seen.add(t.id()));
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).hasSize(25).doesNotHaveDuplicates();
+        assertThat(seen).isSortedAccordingTo((a, b) -> Long.compare(b, a));
+    }
+
+    @Test
+    void typeAndDateRangeNarrowThePage() {
+        LoyaltyHistoryPage redemptions = historyRepository.findPage("alice", TransactionType.REDEEMED,
+                null, null, null, 50);
+        assertThat(redemptions.transactions()).extracting(LoyaltyTransactionView::id).containsExactly(25L, 20L, 15L, 10L, 5L);
+        assertThat(redemptions.nextCursor()).isNull();
+
+        // Rows 4..7 fall in [START+2h, START+4h)
+        LoyaltyHistoryPage range = historyRepository.findPage("alice", null,
+                START.plusHours(2), START.plusHours(4), null, 50);
+        assertThat(range.transactions()).extracting(LoyaltyTransactionView::id).containsExactly(7L, 6L, 5L, 4L);
+    }
+
+    @Test
+    void customersWithoutAnAccountHaveAnEmptyHistory() {
+        LoyaltyHistoryPage page = historyRepository.findPage("nobody", null, null, null, null, 50);
+
+        assertThat(page.transactions()).isEmpty();
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void rejectsAMalformedCursorAsABadRequest() {
+        assertThatThrownBy(() -> historyRepository.findPage("alice", null, null, null, "not-a-cursor", 10))
+                .hasMessageContaining("Invalid cursor")
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private void insert(long id, long accountId, TransactionType type, LocalDateTime createdAt) {
+        jdbcTemplate.update("""
+                INSERT INTO loyalty_transactions (id, account_id, order_id, points, transaction_type, created_at, compacted)
+                VALUES (?, ?, ?, ?, ?, ?, TRUE)""",
+                id, accountId, type == TransactionType.EARNED ? id : null,
+                type == TransactionType.EARNED ? 10 : -5, type.name(), Timestamp.valueOf(createdAt));
+    }
+}
@@ -0,0 +1,122 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import com.coffeeshop.loyaltyservice.repo.LoyaltyHistoryRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loyalty-dedup;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoyaltyService.class, LedgerCompactionService.class, PendingPointsAccumulator.class,
+        LoyaltyLedgerRepository.class, LoyaltyHistoryRepository.class, AwardedOrderIds.class,
+        LoyaltyBalanceCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoyaltyAwardIdempotencyTest {
+
+    @Autowired
+    private LoyaltyService loyaltyService;
+
+    @MockitoSpyBean
+    private LoyaltyTransactionRepository transactionRepository;
+
+    @MockitoSpyBean
+    private AwardedOrderIds awardedOrderIds;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM loyalty_transactions");
+        jdbcTemplate.update("DELETE FROM loyalty_accounts");
+    }
+
+    @Test
+    void redeliveryOfARecentOrderSkipsTheDatabase() {
+        assertThat(loyaltyService.awardPoints("alice", 101L, BigDecimal.valueOf(12))).isPresent();
+
+        clearInvocations(transactionRepository);
+        assertThat(loyaltyService.awardPoints("alice", 101L, BigDecimal.valueOf(12))).isEmpty();
+
+        verify(transactionRepository, never()).existsByOrderIdAndTransactionType(any(), any());
+        assertThat(earnedRows(101L)).isEqualTo(1);
+    }
+
+    @Test
+    void redeliveryAfterTheCacheForgotIsCaughtByTheLedger() {
+        assertThat(loyaltyService.awardPoints("alice", 202L, BigDecimal.valueOf(12))).isPresent();
+
+        // e.g. the event lands on another instance after a rebalance
+        doReturn(false).when(awardedOrderIds).contains(202L);
+        assertThat(loyaltyService.awardPoints("alice", 202L, BigDecimal.valueOf(12))).isEmpty();
+        assertThat(earnedRows(202L)).isEqualTo(1);
+    }
+
+    @Test
+    void concurrentDeliveriesAwardExactlyOnce() throws Exception {
+        // Neither check can see the other's uncommitted row; the unique index has to decide
+        doReturn(false).when(awardedOrderIds).contains(303L);
+        doReturn(false).when(transactionRepository).existsByOrderIdAndTransactionType(any(), any());
+        loyaltyService.getOrCreateAccount("alice");
+
+        int deliveries = 6;
+        ExecutorService pool = Executors.newFixedThreadPool(deliveries);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < deliveries; i++) {
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    return loyaltyService.awardPoints("alice", 303L, BigDecimal.valueOf(12)).isPresent();
+                } catch (DataIntegrityViolationException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        int awarded = 0;
+        for (Future<Boolean> result : results) {
+            awarded += result.get() ? 1 : 0;
+        }
+        pool.shutdown();
+
+        assertThat(awarded).isEqualTo(1);
+        assertThat(earnedRows(303L)).isEqualTo(1);
+    }
+
+    private int earnedRows(Long orderId) {
+        return jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM loyalty_transactions WHERE order_id = ? AND transaction_type = 'EARNED'",
+                Integer.class, orderId);
+    }
+}
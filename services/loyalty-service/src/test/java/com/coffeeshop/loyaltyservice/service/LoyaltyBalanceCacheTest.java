@@ -0,0 +1,88 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import com.coffeeshop.loyaltyservice.dto.LoyaltyBalance;
+import com.coffeeshop.loyaltyservice.model.LoyaltyAccount.LoyaltyTier;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyAccountRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyHistoryRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.clearInvocations;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loyalty-balance;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoyaltyService.class, LedgerCompactionService.class, PendingPointsAccumulator.class,
+        LoyaltyLedgerRepository.class, LoyaltyHistoryRepository.class, AwardedOrderIds.class,
+        LoyaltyBalanceCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoyaltyBalanceCacheTest {
+
+    @Autowired
+    private LoyaltyService loyaltyService;
+
+    @MockitoSpyBean
+    private LoyaltyAccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // The cache lives in the shared context, so every test uses its own customers
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM loyalty_transactions");
+        jdbcTemplate.update("DELETE FROM loyalty_accounts");
+    }
+
+    @Test
+    void readsDoNotCreateAccounts() {
+        assertThat(loyaltyService.getBalance("newcomer"))
+                .isEqualTo(new LoyaltyBalance(0, LoyaltyTier.BRONZE, 0, BigDecimal.ZERO));
+        assertThat(loyaltyService.getAccountView("newcomer").getPointsBalance()).isZero();
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM loyalty_accounts", Integer.class)).isZero();
+    }
+
+    @Test
+    void repeatedReadsAreServedFromTheCache() {
+        loyaltyService.awardPoints("carol", 301L, BigDecimal.valueOf(40));
+
+        clearInvocations(accountRepository);
+        assertThat(loyaltyService.getBalance("carol").pointsBalance()).isEqualTo(40);
+        assertThat(loyaltyService.getBalance("carol").pointsBalance()).isEqualTo(40);
+        assertThat(loyaltyService.getRedeemableValue("carol")).isEqualByComparingTo("0.40");
+
+        verify(accountRepository, times(1)).findByCustomerUsername("carol");
+    }
+
+    @Test
+    void awardsAndRedemptionsInvalidateTheCachedBalance() {
+        assertThat(loyaltyService.getBalance("dave").pointsBalance()).isZero();
+
+        loyaltyService.awardPoints("dave", 401L, BigDecimal.valueOf(30));
+        assertThat(loyaltyService.getBalance("dave").pointsBalance()).isEqualTo(30);
+
+        loyaltyService.redeemPoints("dave", 10, null);
+        LoyaltyBalance balance = loyaltyService.getBalance("dave");
+        assertThat(balance.pointsBalance()).isEqualTo(20);
+        assertThat(balance.lifetimePoints()).isEqualTo(30);
+    }
+}
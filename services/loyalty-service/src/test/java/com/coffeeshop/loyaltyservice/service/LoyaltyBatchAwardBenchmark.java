@@ -0,0 +1,124 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import com.coffeeshop.loyaltyservice.event.PaymentProcessedEvent;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyHistoryRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Awards polls of 1,000 and 10,000 payment events (400 customers, a few of them hot, 5% redelivered
+ * orders) through the batch path, next to the same 1,000-event poll awarded one event at a time.
+ * Prints events/sec and checks every balance against its ledger rows. Runs on H2 in PostgreSQL mode.
+ * Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=LoyaltyBatchAwardBenchmark}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loyalty-bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoyaltyService.class, LedgerCompactionService.class, PendingPointsAccumulator.class,
+        LoyaltyLedgerRepository.class, LoyaltyHistoryRepository.class, AwardedOrderIds.class,
+        LoyaltyBalanceCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoyaltyBatchAwardBenchmark {
+
+    private static final int CUSTOMERS = 400;
+    private static final int POLLS = 5;
+
+    @Autowired
+    private LoyaltyService loyaltyService;
+
+    @Autowired
+    private LedgerCompactionService compactionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicLong orderIds = new AtomicLong();
+    private final Random random = new Random(7);
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM loyalty_transactions");
+        jdbcTemplate.update("DELETE FROM loyalty_accounts");
+    }
+
+    @Test
+    void awardThroughput() {
+        // warm-up, also creates most accounts
+        loyaltyService.awardPointsBatch(poll(2_000));
+        for (PaymentProcessedEvent e : poll(200)) {
+            loyaltyService.awardPoints(e.getCustomerUsername(), e.getOrderId(), e.getAmount());
+        }
+
+        long start = System.nanoTime();
+        int perEvent = 0;
+        for (PaymentProcessedEvent e : poll(1_000)) {
+            perEvent += loyaltyService.awardPoints(e.getCustomerUsername(), e.getOrderId(), e.getAmount()).isPresent() ? 1 : 0;
+        }
+        report("one transaction per event, 1k events", 1_000, perEvent, System.nanoTime() - start);
+
+        for (int size : new int[]{1_000, 10_000}) {
+            List<List<PaymentProcessedEvent>> polls = new ArrayList<>();
+            for (int i = 0; i < POLLS; i++) {
+                polls.add(poll(size));
+            }
+            int awarded = 0;
+            start = System.nanoTime();
+            for (List<PaymentProcessedEvent> poll : polls) {
+                awarded += loyaltyService.awardPointsBatch(poll);
+            }
+            report(String.format("batch, %,d events per poll", size), size * POLLS, awarded, System.nanoTime() - start);
+        }
+
+        compactionService.compactPending();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM loyalty_accounts a WHERE a.points_balance <> "
+                        + "(SELECT COALESCE(SUM(t.points), 0) FROM loyalty_transactions t WHERE t.account_id = a.id)",
+                Integer.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM (SELECT order_id FROM loyalty_transactions GROUP BY order_id HAVING COUNT(*) > 1) d",
+                Integer.class)).isZero();
+    }
+
+    // Every 20th event repeats an order from earlier in the poll; a quarter of traffic comes from 5 regulars
+    private List<PaymentProcessedEvent> poll(int size) {
+        List<PaymentProcessedEvent> events = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && i % 20 == 0) {
+                PaymentProcessedEvent again = events.get(random.nextInt(i));
+                events.add(again);
+                continue;
+            }
+            int customer = random.nextInt(4) == 0 ? random.nextInt(5) : random.nextInt(CUSTOMERS);
+            events.add(new PaymentProcessedEvent(orderIds.incrementAndGet(), "customer-" + customer,
+                    BigDecimal.valueOf(random.nextInt(3, 60)), "CARD", "COMPLETED", LocalDateTime.now()));
+        }
+        return events;
+    }
+
+    private static void report(String label, int events, int awarded, long nanos) {
+        System.out.printf("%-40s %,8d events (%,d awarded) in %,6d ms: %,10.0f events/s%n",
+                label, events, awarded, nanos / 1_000_000, events / (nanos / 1e9));
+    }
+}
@@ -0,0 +1,299 @@
+package com.coffeeshop.loyaltyservice.service;
+
+import com.coffeeshop.loyaltyservice.event.PaymentProcessedEvent;
+import com.coffeeshop.loyaltyservice.model.LoyaltyAccount;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyAccountRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyHistoryRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyLedgerRepository;
+import com.coffeeshop.loyaltyservice.repo.LoyaltyTransactionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:loyalty;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({LoyaltyService.class, LedgerCompactionService.class, PendingPointsAccumulator.class,
+        LoyaltyLedgerRepository.class, LoyaltyHistoryRepository.class, AwardedOrderIds.class,
+        LoyaltyBalanceCache.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LoyaltyLedgerStressTest {
+
+    private static final List<String> CUSTOMERS = List.of("alice", "alice", "alice", "alice", "bob", "carol");
+
+    @Autowired
+    private LoyaltyService loyaltyService;
+
+    @Autowired
+    private LedgerCompactionService compactionService;
+
+    @Autowired
+    private PendingPointsAccumulator accumulator;
+
+    @Autowired
+    private LoyaltyAccountRepository accountRepository;
+
+    @Autowired
+    private LoyaltyLedgerRepository ledgerRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private LoyaltyTransactionRepository transactionRepository;
+
+    @Autowired
+    private LoyaltyHistoryRepository historyRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    // Shared across tests: the context, and with it the LRU of awarded orders, outlives each test
+    private static final AtomicLong orderIds = new AtomicLong();
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM loyalty_transactions");
+        jdbcTemplate.update("DELETE FROM loyalty_accounts");
+    }
+
+    @Test
+    void concurrentAwardsWithCompactionLoseNoPoints() throws Exception {
+        ConcurrentHashMap<String, LongAdder> awarded = new ConcurrentHashMap<>();
+        AtomicBoolean awarding = new AtomicBoolean(true);
+
+        List<Future<?>> compactor = runConcurrently(1, () -> {
+            while (awarding.get()) {
+                compactionService.compactPending();
+            }
+        });
+        runConcurrently(8, () -> {
+            for (int i = 0; i < 100; i++) {
+                String customer = CUSTOMERS.get(ThreadLocalRandom.current().nextInt(CUSTOMERS.size()));
+                int points = loyaltyService.awardPoints(customer, orderIds.incrementAndGet(),
+                        BigDecimal.valueOf(ThreadLocalRandom.current().nextInt(1, 40))).orElseThrow().getPoints();
+                awarded.computeIfAbsent(customer, c -> new LongAdder()).add(points);
+            }
+        }).forEach(LoyaltyLedgerStressTest::await);
+
+        // Before the last compaction, reads on this instance already include every award, and so does
+        // the database fallback used while a compaction keeps the in-memory read from settling
+        for (String customer : awarded.keySet()) {
+            assertThat(loyaltyService.getAccountView(customer).getPointsBalance())
+                    .isEqualTo(awarded.get(customer).intValue());
+            assertThat(ledgerRepository.findTotals(accumulator.accountId(customer)).pointsBalance())
+                    .isEqualTo(awarded.get(customer).intValue());
+        }
+
+        awarding.set(false);
+        compactor.forEach(LoyaltyLedgerStressTest::await);
+        compactionService.compactPending();
+
+        assertThat(accountRepository.count()).isEqualTo(3);
+        for (String customer : awarded.keySet()) {
+            LoyaltyAccount account = accountRepository.findByCustomerUsername(customer).orElseThrow();
+            int expected = awarded.get(customer).intValue();
+            assertThat(account.getPointsBalance()).isEqualTo(expected);
+            assertThat(account.getLifetimePoints()).isEqualTo(expected);
+            assertThat(account.getTier()).isEqualTo(LoyaltyAccount.tierFor(expected));
+            assertThat(accumulator.pendingBalance(account.getId())).isZero();
+            assertThat(loyaltyService.getAccountView(customer).getPointsBalance()).isEqualTo(expected);
+        }
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM loyalty_transactions WHERE compacted = FALSE", Integer.class)).isZero();
+    }
+
+    @Test
+    void concurrentRedemptionsNeverOverdraw() throws Exception {
+        LongAdder awarded = new LongAdder();
+        AtomicInteger redeemed = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        // Something to redeem however the threads get scheduled
+        awarded.add(loyaltyService.awardPoints("alice", orderIds.incrementAndGet(), BigDecimal.valueOf(100))
+                .orElseThrow().getPoints());
+
+        List<Future<?>> awards = runConcurrently(4, () -> {
+            for (int i = 0; i < 50; i++) {
+                awarded.add(loyaltyService.awardPoints("alice", orderIds.incrementAndGet(), BigDecimal.valueOf(10))
+                        .orElseThrow().getPoints());
+            }
+        });
+        List<Future<?>> redemptions = runConcurrently(4, () -> {
+            for (int i = 0; i < 30; i++) {
+                try {
+                    loyaltyService.redeemPoints("alice", 25, null);
+                    redeemed.addAndGet(25);
+                } catch (RuntimeException e) {
+                    rejected.incrementAndGet();
+                }
+            }
+        });
+        awards.forEach(LoyaltyLedgerStressTest::await);
+        redemptions.forEach(LoyaltyLedgerStressTest::await);
+        compactionService.compactPending();
+
+        LoyaltyAccount account = accountRepository.findByCustomerUsername("alice").orElseThrow();
+        assertThat(redeemed.get()).isPositive();
+        assertThat(account.getPointsBalance()).isEqualTo(awarded.intValue() - redeemed.get()).isNotNegative();
+        assertThat(account.getLifetimePoints()).isEqualTo(awarded.intValue());
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT SUM(points) FROM loyalty_transactions WHERE account_id = ?", Integer.class, account.getId()))
+                .isEqualTo(account.getPointsBalance());
+    }
+
+    @Test
+    void batchAwardsAreAppendedAndCompactedLater() {
+        LocalDateTime now = LocalDateTime.now();
+        int awarded = loyaltyService.awardPointsBatch(List.of(
+                new PaymentProcessedEvent(orderIds.incrementAndGet(), "alice", BigDecimal.valueOf(20), "CARD", "COMPLETED", now),
+                new PaymentProcessedEvent(orderIds.incrementAndGet(), "alice", BigDecimal.valueOf(30), "CARD", "COMPLETED", now),
+                new PaymentProcessedEvent(orderIds.incrementAndGet(), "bob", BigDecimal.valueOf(10), "CARD", "COMPLETED", now)));
+        assertThat(awarded).isEqualTo(3);
+
+        // Nothing applied to the account rows yet, but reads already see the points
+        assertThat(accountRepository.findByCustomerUsername("alice").orElseThrow().getPointsBalance()).isZero();
+        assertThat(loyaltyService.getAccountView("alice").getPointsBalance()).isEqualTo(50);
+        assertThat(loyaltyService.getAccountView("bob").getPointsBalance()).isEqualTo(10);
+
+        compactionService.compactPending();
+        LoyaltyAccount alice = accountRepository.findByCustomerUsername("alice").orElseThrow();
+        assertThat(alice.getPointsBalance()).isEqualTo(50);
+        assertThat(alice.getLifetimePoints()).isEqualTo(50);
+        assertThat(accumulator.pendingBalance(alice.getId())).isZero();
+        assertThat(loyaltyService.getAccountView("alice").getPointsBalance()).isEqualTo(50);
+    }
+
+    @Test
+    void rowsCompactedByAnotherInstanceAreNotCountedTwice() {
+        Instance other = otherInstance();
+        loyaltyService.awardPoints("alice", orderIds.incrementAndGet(), BigDecimal.valueOf(30));
+        assertThat(loyaltyService.getAccountView("alice").getPointsBalance()).isEqualTo(30);
+
+        // The other instance folds this one's row into the account before this one prunes it
+        other.compaction().compactPending();
+        assertThat(accountRepository.findByCustomerUsername("alice").orElseThrow().getPointsBalance()).isEqualTo(30);
+
+        assertThat(loyaltyService.getAccountView("alice").getPointsBalance()).isEqualTo(30);
+        assertThat(loyaltyService.getBalance("alice").pointsBalance()).isEqualTo(30);
+        assertThat(accumulator.pendingBalance(accumulator.accountId("alice"))).isZero();
+    }
+
+    @Test
+    void twoInstancesSharingTheDatabaseNeverDoubleCount() throws Exception {
+        Instance other = otherInstance();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        // Upper bound for any read: every award that may have committed, on either instance
+        LongAdder started = new LongAdder();
+        LongAdder awarded = new LongAdder();
+        AtomicBoolean awarding = new AtomicBoolean(true);
+
+        List<Future<?>> background = new ArrayList<>();
+        background.addAll(runConcurrently(1, () -> {
+            while (awarding.get()) {
+                compactionService.compactPending();
+            }
+        }));
+        background.addAll(runConcurrently(1, () -> {
+            while (awarding.get()) {
+                other.compaction().compactPending();
+            }
+        }));
+        background.addAll(runConcurrently(2, () -> {
+            while (awarding.get()) {
+                assertThat(loyaltyService.getAccountView("alice").getPointsBalance()).isLessThanOrEqualTo(started.intValue());
+                assertThat(other.service().getAccountView("alice").getPointsBalance()).isLessThanOrEqualTo(started.intValue());
+            }
+        }));
+        // $1 orders earn one point in every tier the account reaches here, so started is exact
+        List<Future<?>> awards = runConcurrently(4, () -> {
+            for (int i = 0; i < 100; i++) {
+                started.increment();
+                Long orderId = orderIds.incrementAndGet();
+                LoyaltyService instance = ThreadLocalRandom.current().nextBoolean() ? loyaltyService : other.service();
+                awarded.add(tx.execute(s -> instance.awardPoints("alice", orderId, BigDecimal.ONE)).orElseThrow().getPoints());
+            }
+        });
+        awards.forEach(LoyaltyLedgerStressTest::await);
+        awarding.set(false);
+        background.forEach(LoyaltyLedgerStressTest::await);
+
+        compactionService.compactPending();
+        other.compaction().compactPending();
+        int expected = awarded.intValue();
+        assertThat(accountRepository.findByCustomerUsername("alice").orElseThrow().getPointsBalance()).isEqualTo(expected);
+        assertThat(loyaltyService.getAccountView("alice").getPointsBalance()).isEqualTo(expected);
+        assertThat(other.service().getAccountView("alice").getPointsBalance()).isEqualTo(expected);
+    }
+
+    private record Instance(LoyaltyService service, LedgerCompactionService compaction) {}
+
+    // A second service instance on the same database, with its own in-memory state; not proxied, so its
+    // transactional methods need a TransactionTemplate around them
+    private Instance otherInstance() {
+        PendingPointsAccumulator otherAccumulator = new PendingPointsAccumulator();
+        LedgerCompactionService compaction = new LedgerCompactionService(accountRepository, ledgerRepository,
+                otherAccumulator, transactionManager, 500);
+        LoyaltyService service = new LoyaltyService(accountRepository, transactionRepository, ledgerRepository,
+                historyRepository, compaction, otherAccumulator, new AwardedOrderIds(1000),
+                new LoyaltyBalanceCache(new SimpleMeterRegistry(), Duration.ofSeconds(30), 1000));
+        return new Instance(service, compaction);
+    }
+
+    private interface Task {
+        void run() throws Exception;
+    }
+
+    private static List<Future<?>> runConcurrently(int threads, Task task) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                task.run();
+                return null;
+            }));
+        }
+        start.countDown();
+        pool.shutdown();
+        return futures;
+    }
+
+    private static void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
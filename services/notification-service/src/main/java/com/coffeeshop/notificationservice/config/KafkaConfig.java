@@ -1,5 +1,6 @@
 package com.coffeeshop.notificationservice.config;
 
+import com.coffeeshop.notificationservice.event.EventDeserializer;
 import org.apache.kafka.clients.consumer.ConsumerConfig;
 import org.apache.kafka.common.serialization.StringDeserializer;
 import org.springframework.beans.factory.annotation.Value;
@@ -9,7 +10,9 @@ import org.springframework.kafka.annotation.EnableKafka;
 import org.springframework.kafka.config.ConcurrentKafkaListenerContainerFactory;
 import org.springframework.kafka.core.ConsumerFactory;
 import org.springframework.kafka.core.DefaultKafkaConsumerFactory;
-import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.listener.DefaultErrorHandler;
+import org.springframework.kafka.support.serializer.ErrorHandlingDeserializer;
+import org.springframework.util.backoff.ExponentialBackOff;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -21,23 +24,46 @@ public class KafkaConfig {
     @Value("${spring.kafka.bootstrap-servers:localhost:9092}")
     private String bootstrapServers;
 
+    // Scale-out: every node consumes under its own group, so each sees every event and delivers it to the
+    // subscribers attached to it. Otherwise the nodes share one group and each event reaches only one of them.
+    @Value("${notifications.scale-out.enabled:false}")
+    private boolean scaleOut;
+
+    // Required in scale-out mode: unique per node, or nodes sharing a group each miss the others' events, and
+    // stable across restarts, or every restart starts a new group at the end of the topic. There is no
+    // default, since nothing available at startup is guaranteed to be both.
+    @Value("${notifications.scale-out.node-id:}")
+    private String nodeId;
+
     @Bean
     public ConsumerFactory<String, Object> consumerFactory() {
+        if (scaleOut && nodeId.isBlank()) {
+            throw new IllegalStateException("notifications.scale-out.node-id must be set when scale-out is enabled");
+        }
         Map<String, Object> props = new HashMap<>();
         props.put(ConsumerConfig.BOOTSTRAP_SERVERS_CONFIG, bootstrapServers);
-        props.put(ConsumerConfig.GROUP_ID_CONFIG, "notification-service");
-        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, "earliest");
+        props.put(ConsumerConfig.GROUP_ID_CONFIG, scaleOut ? "notification-service-" + nodeId : "notification-service");
+        // A node's new group would otherwise replay the whole topic; the other nodes already stored those events
+        props.put(ConsumerConfig.AUTO_OFFSET_RESET_CONFIG, scaleOut ? "latest" : "earliest");
         props.put(ConsumerConfig.KEY_DESERIALIZER_CLASS_CONFIG, StringDeserializer.class);
-        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, JsonDeserializer.class);
-        props.put(JsonDeserializer.TRUSTED_PACKAGES, "com.coffeeshop.*");
+        // A record that can't be decoded reaches the error handler as a DeserializationException and is skipped
+        // instead of failing every poll of its partition
+        props.put(ConsumerConfig.VALUE_DESERIALIZER_CLASS_CONFIG, ErrorHandlingDeserializer.class);
+        props.put(ErrorHandlingDeserializer.VALUE_DESERIALIZER_CLASS, EventDeserializer.class);
         return new DefaultKafkaConsumerFactory<>(props);
     }
 
+    // A record the store can't queue (its writer is behind, e.g. the database is down) is retried with growing
+    // pauses for up to ten minutes instead of the default ten quick attempts, so consumption waits for the writer
     @Bean
     public ConcurrentKafkaListenerContainerFactory<String, Object> kafkaListenerContainerFactory() {
         ConcurrentKafkaListenerContainerFactory<String, Object> factory = 
             new ConcurrentKafkaListenerContainerFactory<>();
         factory.setConsumerFactory(consumerFactory());
+        ExponentialBackOff backOff = new ExponentialBackOff(1000L, 2.0);
+        backOff.setMaxInterval(30_000L);
+        backOff.setMaxElapsedTime(600_000L);
+        factory.setCommonErrorHandler(new DefaultErrorHandler(backOff));
         return factory;
     }
 }
@@ -1,13 +1,11 @@
 package com.coffeeshop.notificationservice.controller;
 
-import com.coffeeshop.notificationservice.model.Notification;
+import com.coffeeshop.notificationservice.dto.NotificationPage;
 import com.coffeeshop.notificationservice.service.NotificationService;
 import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.util.List;
-
 @RestController
 @RequestMapping("/api/notifications")
 @CrossOrigin(origins = "http://localhost:3000", allowCredentials = "true")
@@ -19,18 +17,23 @@ public class NotificationController {
         this.notificationService = notificationService;
     }
 
+    // Newest first; pass nextCursor back to continue
     @GetMapping
-    public List<Notification> getNotifications(@RequestParam String username) {
-        return notificationService.getUserNotifications(username);
+    public NotificationPage getNotifications(@RequestParam String username,
+                                             @RequestParam(required = false) String cursor,
+                                             @RequestParam(defaultValue = "50") int limit) {
+        return notificationService.getUserNotifications(username, cursor, limit);
     }
 
+    // EventSource sends Last-Event-ID by itself when it reconnects; the stream then resumes with what was missed
     @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribeUser(@RequestParam String username) {
-        return notificationService.subscribeUser(username);
+    public SseEmitter subscribeUser(@RequestParam String username,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return notificationService.subscribeUser(username, lastEventId);
     }
 
     @GetMapping(value = "/barista/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribeBaristaQueue() {
-        return notificationService.subscribeBaristaQueue();
+    public SseEmitter subscribeBaristaQueue(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return notificationService.subscribeBaristaQueue(lastEventId);
     }
 }
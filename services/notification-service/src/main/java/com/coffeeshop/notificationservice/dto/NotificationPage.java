@@ -0,0 +1,8 @@
+package com.coffeeshop.notificationservice.dto;
+
+import com.coffeeshop.notificationservice.model.Notification;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record NotificationPage(List<Notification> notifications, String nextCursor) {}
@@ -0,0 +1,28 @@
+package com.coffeeshop.notificationservice.listener;
+
+import com.coffeeshop.notificationservice.model.Notification;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+// Builds notifications whose id and timestamp depend only on the record they came from. In scale-out mode
+// every node handles every record, so all of them produce the same row and the insert keeps just one.
+final class Notifications {
+
+    private Notifications() {
+    }
+
+    static Notification of(ConsumerRecord<?, ?> record, String type, String title, String message, String targetUser) {
+        Notification n = new Notification(type, title, message, targetUser);
+        String source = record.topic() + ":" + record.partition() + ":" + record.offset() + ":" + targetUser;
+        n.setId(UUID.nameUUIDFromBytes(source.getBytes(StandardCharsets.UTF_8)).toString());
+        if (record.timestamp() >= 0) {
+            n.setCreatedAt(LocalDateTime.ofInstant(Instant.ofEpochMilli(record.timestamp()), ZoneId.systemDefault()));
+        }
+        return n;
+    }
+}
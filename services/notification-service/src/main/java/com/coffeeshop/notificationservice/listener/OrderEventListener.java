@@ -3,6 +3,7 @@ package com.coffeeshop.notificationservice.listener;
 import com.coffeeshop.notificationservice.event.OrderCreatedEvent;
 import com.coffeeshop.notificationservice.model.Notification;
 import com.coffeeshop.notificationservice.service.NotificationService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
@@ -15,10 +16,14 @@ public class OrderEventListener {
         this.notificationService = notificationService;
     }
 
-    @KafkaListener(topics = "orders.created", groupId = "notification-service")
-    public void handleOrderCreated(OrderCreatedEvent event) {
+    // The group comes from KafkaConfig, per node in scale-out mode
+    @KafkaListener(topics = "orders.created")
+    public void handleOrderCreated(ConsumerRecord<String, OrderCreatedEvent> record) {
+        OrderCreatedEvent event = record.value();
+
         // Notify customer
-        Notification customerNotification = new Notification(
+        Notification customerNotification = Notifications.of(
+            record,
             "ORDER_CREATED",
             "Order Received",
             "Your order #" + event.getOrderId() + " has been received and is being prepared!",
@@ -28,7 +33,8 @@ public class OrderEventListener {
         notificationService.sendNotification(customerNotification);
 
         // Notify barista queue
-        Notification baristaNotification = new Notification(
+        Notification baristaNotification = Notifications.of(
+            record,
             "ORDER_CREATED",
             "New Order",
             "Order #" + event.getOrderId() + " for " + event.getCustomerUsername(),
@@ -3,6 +3,7 @@ package com.coffeeshop.notificationservice.listener;
 import com.coffeeshop.notificationservice.event.PaymentProcessedEvent;
 import com.coffeeshop.notificationservice.model.Notification;
 import com.coffeeshop.notificationservice.service.NotificationService;
+import org.apache.kafka.clients.consumer.ConsumerRecord;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.stereotype.Component;
 
@@ -15,8 +16,9 @@ public class PaymentEventListener {
         this.notificationService = notificationService;
     }
 
-    @KafkaListener(topics = "payments.processed", groupId = "notification-service")
-    public void handlePaymentProcessed(PaymentProcessedEvent event) {
+    @KafkaListener(topics = "payments.processed")
+    public void handlePaymentProcessed(ConsumerRecord<String, PaymentProcessedEvent> record) {
+        PaymentProcessedEvent event = record.value();
         String title, message;
         
         if ("SUCCESS".equals(event.getStatus())) {
@@ -27,7 +29,8 @@ public class PaymentEventListener {
             message = "Payment for order #" + event.getOrderId() + " failed. Please try again.";
         }
 
-        Notification notification = new Notification(
+        Notification notification = Notifications.of(
+            record,
             "PAYMENT_" + event.getStatus(),
             title,
             message,
@@ -1,6 +1,7 @@
 package com.coffeeshop.notificationservice.model;
 
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 
 public class Notification {
     private String id;
@@ -12,8 +13,9 @@ public class Notification {
     private LocalDateTime createdAt;
     private boolean read;
 
+    // Microseconds, as stored in the database, so cursors built from memory and from rows compare alike
     public Notification() {
-        this.createdAt = LocalDateTime.now();
+        this.createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
         this.read = false;
     }
 
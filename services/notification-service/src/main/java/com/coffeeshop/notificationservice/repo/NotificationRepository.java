@@ -0,0 +1,106 @@
+package com.coffeeshop.notificationservice.repo;
+
+import com.coffeeshop.notificationservice.model.Notification;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@Repository
+public class NotificationRepository {
+
+    // Rows are immutable once written, so a retried flush can simply skip what already made it
+    private static final String INSERT_SQL = """
+            INSERT INTO notifications (id, target_user, type, title, message, order_id, created_at, is_read)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT DO NOTHING""";
+
+    private static final String DELETE_OLDER_THAN_SQL = "DELETE FROM notifications WHERE created_at < ?";
+
+    private static final RowMapper<Notification> NOTIFICATION_MAPPER = (rs, i) -> {
+        Notification n = new Notification();
+        n.setId(rs.getString("id"));
+        n.setTargetUser(rs.getString("target_user"));
+        n.setType(rs.getString("type"));
+        n.setTitle(rs.getString("title"));
+        n.setMessage(rs.getString("message"));
+        n.setOrderId(rs.getString("order_id"));
+        n.setCreatedAt(rs.getTimestamp("created_at").toLocalDateTime());
+        n.setRead(rs.getBoolean("is_read"));
+        return n;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public NotificationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    public void insertAll(List<Notification> notifications) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, notifications, notifications.size(), (ps, n) -> {
+            ps.setString(1, n.getId());
+            ps.setString(2, n.getTargetUser());
+            ps.setString(3, n.getType());
+            ps.setString(4, n.getTitle());
+            ps.setString(5, n.getMessage());
+            ps.setString(6, n.getOrderId());
+            ps.setTimestamp(7, Timestamp.valueOf(n.getCreatedAt()));
+            ps.setBoolean(8, n.isRead());
+        });
+    }
+
+    // Newest first, strictly older than the cursor when there is one: an index range scan however deep the page
+    public List<Notification> findOlder(String targetUser, Cursor before, int limit) {
+        StringBuilder sql = new StringBuilder("""
+                SELECT id, target_user, type, title, message, order_id, created_at, is_read
+                  FROM notifications
+                 WHERE target_user = ?""");
+        List<Object> args = new ArrayList<>();
+        args.add(targetUser);
+        if (before != null) {
+            sql.append(" AND (created_at, id) < (?, ?)");
+            args.add(Timestamp.valueOf(before.createdAt()));
+            args.add(before.id());
+        }
+        sql.append(" ORDER BY created_at DESC, id DESC LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), NOTIFICATION_MAPPER, args.toArray());
+    }
+
+    public int deleteOlderThan(LocalDateTime cutoff) {
+        return jdbcTemplate.update(DELETE_OLDER_THAN_SQL, Timestamp.valueOf(cutoff));
+    }
+
+    // Opaque to clients: base64url of "<created_at>|<id>"
+    public record Cursor(LocalDateTime createdAt, String id) {
+
+        public static Cursor of(Notification notification) {
+            return new Cursor(notification.getCreatedAt(), notification.getId());
+        }
+
+        public String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        public static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.indexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), raw.substring(sep + 1));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                // The client's input, not our failure
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
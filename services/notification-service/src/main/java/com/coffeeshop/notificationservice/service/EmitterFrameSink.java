@@ -0,0 +1,28 @@
+package com.coffeeshop.notificationservice.service;
+
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+
+public class EmitterFrameSink implements FrameSink {
+
+    private final SseEmitter emitter;
+
+    public EmitterFrameSink(SseEmitter emitter) {
+        this.emitter = emitter;
+    }
+
+    // The frame is already a complete event, so it goes out through the byte[] converter as is
+    @Override
+    public void send(SseFrame frame) throws IOException {
+        emitter.send(Set.of(new DataWithMediaType(frame.bytes(), MediaType.TEXT_EVENT_STREAM)));
+    }
+
+    @Override
+    public void close() {
+        emitter.complete();
+    }
+}
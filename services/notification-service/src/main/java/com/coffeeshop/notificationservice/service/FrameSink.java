@@ -0,0 +1,12 @@
+package com.coffeeshop.notificationservice.service;
+
+import java.io.IOException;
+
+// Where a connection's frames end up: the client's SseEmitter in production, anything in tests.
+// Only the connection's drain task calls send, one frame at a time, so it may block on network I/O.
+public interface FrameSink {
+
+    void send(SseFrame frame) throws IOException;
+
+    void close();
+}
@@ -1,105 +1,60 @@
 package com.coffeeshop.notificationservice.service;
 
+import com.coffeeshop.notificationservice.dto.NotificationPage;
 import com.coffeeshop.notificationservice.model.Notification;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
-import java.io.IOException;
-import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CopyOnWriteArrayList;
-
 @Service
 public class NotificationService {
 
-    // Store notifications per user
-    private final Map<String, List<Notification>> userNotifications = new ConcurrentHashMap<>();
-    
-    // Store SSE emitters for real-time updates
-    private final Map<String, List<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
-    
-    // Store barista queue emitters
-    private final List<SseEmitter> baristaEmitters = new CopyOnWriteArrayList<>();
+    private final NotificationStore store;
+
+    // Real-time delivery to this node's SSE subscribers; never blocks the caller
+    private final SseFanout fanout;
+    private final SseFrameEncoder encoder;
+
+    public NotificationService(NotificationStore store, SseFanout fanout, SseFrameEncoder encoder) {
+        this.store = store;
+        this.fanout = fanout;
+        this.encoder = encoder;
+    }
 
     public void sendNotification(Notification notification) {
         String user = notification.getTargetUser();
         
         // Store notification
-        userNotifications.computeIfAbsent(user, k -> new CopyOnWriteArrayList<>()).add(notification);
-        
-        // Send via SSE to user
-        sendSseToUser(user, notification);
+        store.add(notification);
         
-        // If it's an order notification, also send to barista queue
-        if ("ORDER_CREATED".equals(notification.getType()) || 
+        // Send via SSE to user and, if it's an order notification, also to barista queue
+        boolean toUser = fanout.tracksUser(user);
+        boolean toBaristas = "ORDER_CREATED".equals(notification.getType()) ||
             "ORDER_READY".equals(notification.getType()) ||
-            "ORDER_PROCESSING".equals(notification.getType())) {
-            sendToBaristaQueue(notification);
+            "ORDER_PROCESSING".equals(notification.getType());
+        if (!toUser && !toBaristas) {
+            return;
         }
-    }
-
-    public List<Notification> getUserNotifications(String username) {
-        return userNotifications.getOrDefault(username, Collections.emptyList());
-    }
-
-    public SseEmitter subscribeUser(String username) {
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        
-        userEmitters.computeIfAbsent(username, k -> new CopyOnWriteArrayList<>()).add(emitter);
-        
-        emitter.onCompletion(() -> removeEmitter(username, emitter));
-        emitter.onTimeout(() -> removeEmitter(username, emitter));
-        emitter.onError(e -> removeEmitter(username, emitter));
-        
-        return emitter;
-    }
 
-    public SseEmitter subscribeBaristaQueue() {
-        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
-        baristaEmitters.add(emitter);
-        
-        emitter.onCompletion(() -> baristaEmitters.remove(emitter));
-        emitter.onTimeout(() -> baristaEmitters.remove(emitter));
-        emitter.onError(e -> baristaEmitters.remove(emitter));
-        
-        return emitter;
+        // Serialized once, however many subscribers and channels it goes to
+        byte[] data = encoder.data(notification);
+        if (toUser) {
+            fanout.publishToUser(user, "notification", notification.getOrderId(), data);
+        }
+        if (toBaristas) {
+            fanout.publishToBaristas("order-update", notification.getOrderId(), data);
+        }
     }
 
-    private void sendSseToUser(String username, Notification notification) {
-        List<SseEmitter> emitters = userEmitters.get(username);
-        if (emitters != null) {
-            List<SseEmitter> deadEmitters = new ArrayList<>();
-            for (SseEmitter emitter : emitters) {
-                try {
-                    emitter.send(SseEmitter.event()
-                            .name("notification")
-                            .data(notification));
-                } catch (IOException e) {
-                    deadEmitters.add(emitter);
-                }
-            }
-            emitters.removeAll(deadEmitters);
-        }
+    public NotificationPage getUserNotifications(String username, String cursor, int limit) {
+        return store.page(username, cursor, limit);
     }
 
-    private void sendToBaristaQueue(Notification notification) {
-        List<SseEmitter> deadEmitters = new ArrayList<>();
-        for (SseEmitter emitter : baristaEmitters) {
-            try {
-                emitter.send(SseEmitter.event()
-                        .name("order-update")
-                        .data(notification));
-            } catch (IOException e) {
-                deadEmitters.add(emitter);
-            }
-        }
-        baristaEmitters.removeAll(deadEmitters);
+    // lastEventId is the Last-Event-ID of a reconnecting client, null on a fresh subscription
+    public SseEmitter subscribeUser(String username, Long lastEventId) {
+        return fanout.subscribeUser(username, lastEventId);
     }
 
-    private void removeEmitter(String username, SseEmitter emitter) {
-        List<SseEmitter> emitters = userEmitters.get(username);
-        if (emitters != null) {
-            emitters.remove(emitter);
-        }
+    public SseEmitter subscribeBaristaQueue(Long lastEventId) {
+        return fanout.subscribeBarista(lastEventId);
     }
 }
@@ -0,0 +1,240 @@
+package com.coffeeshop.notificationservice.service;
+
+import com.coffeeshop.notificationservice.dto.NotificationPage;
+import com.coffeeshop.notificationservice.model.Notification;
+import com.coffeeshop.notificationservice.repo.NotificationRepository;
+import com.coffeeshop.notificationservice.repo.NotificationRepository.Cursor;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// The newest notifications of each user stay in a fixed-size ring until they expire; every notification is
+// also queued for a batched, write-behind insert into the notifications table, where reads past the ring go.
+// Only the scheduled writer touches the table for inserts: reads and adds never wait on it.
+@Component
+public class NotificationStore {
+
+    private static final Logger logger = LoggerFactory.getLogger(NotificationStore.class);
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    static final Comparator<Notification> NEWEST_FIRST = Comparator
+            .comparing(Notification::getCreatedAt)
+            .thenComparing(Notification::getId)
+            .reversed();
+
+    private final NotificationRepository repository;
+    private final Map<String, Ring> rings = new ConcurrentHashMap<>();
+    private final BlockingQueue<Notification> pending;
+    // Guarded by itself; a batch that failed to insert stays here and is retried first
+    private final List<Notification> batch = new ArrayList<>();
+    // Everything queued or in the batch, per user, until its insert has committed; reads merge it in
+    private final Map<String, Set<Notification>> unflushed = new ConcurrentHashMap<>();
+    private final int ringCapacity;
+    private final Duration ttl;
+    private final int batchSize;
+    private final Duration retention;
+    private final Duration offerTimeout;
+
+    public NotificationStore(NotificationRepository repository,
+                             @Value("${notifications.ring.capacity:100}") int ringCapacity,
+                             @Value("${notifications.ring.ttl:PT24H}") Duration ttl,
+                             @Value("${notifications.store.batch-size:500}") int batchSize,
+                             @Value("${notifications.store.queue-capacity:10000}") int queueCapacity,
+                             @Value("${notifications.store.retention:P30D}") Duration retention,
+                             @Value("${notifications.store.offer-timeout:PT5S}") Duration offerTimeout) {
+        this.repository = repository;
+        this.ringCapacity = ringCapacity;
+        this.ttl = ttl;
+        this.batchSize = batchSize;
+        this.pending = new ArrayBlockingQueue<>(queueCapacity);
+        this.retention = retention;
+        this.offerTimeout = offerTimeout;
+    }
+
+    // O(1): one slot in the user's ring and one queue entry. When the queue is full the caller waits up to
+    // offer-timeout for the writer to make room, then fails so the listener redelivers the record later;
+    // producers slow down to the database's pace instead of dropping notifications.
+    public void add(Notification notification) {
+        String user = notification.getTargetUser();
+        // Tracked before it is queued, so the writer can't insert it and untrack it first
+        unflushed.compute(user, (u, set) -> {
+            Set<Notification> s = set != null ? set : ConcurrentHashMap.newKeySet();
+            s.add(notification);
+            return s;
+        });
+        boolean queued;
+        try {
+            queued = pending.offer(notification, offerTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            queued = false;
+        }
+        if (!queued) {
+            untrack(List.of(notification));
+            throw new RuntimeException("Notification write queue is full, database writes are falling behind");
+        }
+        rings.compute(user, (u, ring) -> {
+            Ring r = ring != null ? ring : new Ring(ringCapacity);
+            r.add(notification);
+            return r;
+        });
+    }
+
+    // Newest first. Memory (the ring plus whatever the writer hasn't inserted yet) holds everything newer
+    // than its oldest entry, so a page is served from memory as far as it reaches and continues from the
+    // table after that. Unflushed entries are read before the table: one the writer inserts in between is
+    // then found in one or both, and duplicates are dropped by id.
+    public NotificationPage page(String user, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        Cursor after = cursor == null || cursor.isBlank() ? null : Cursor.decode(cursor);
+
+        Map<String, Notification> inMemory = new HashMap<>();
+        Ring ring = rings.get(user);
+        if (ring != null) {
+            ring.newestFirst(LocalDateTime.now().minus(ttl)).forEach(n -> inMemory.put(n.getId(), n));
+        }
+        unflushed.getOrDefault(user, Set.of()).forEach(n -> inMemory.putIfAbsent(n.getId(), n));
+
+        // One extra entry tells us whether there is a next page
+        List<Notification> page = inMemory.values().stream()
+                .filter(n -> after == null || isOlder(n, after))
+                .sorted(NEWEST_FIRST)
+                .limit(pageSize + 1)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (page.size() <= pageSize) {
+            Cursor from = page.isEmpty() ? after : Cursor.of(page.get(page.size() - 1));
+            for (Notification n : repository.findOlder(user, from, pageSize + 1 - page.size())) {
+                if (!inMemory.containsKey(n.getId())) {
+                    page.add(n);
+                }
+            }
+        }
+
+        if (page.size() <= pageSize) {
+            return new NotificationPage(page, null);
+        }
+        List<Notification> items = page.subList(0, pageSize);
+        return new NotificationPage(List.copyOf(items), Cursor.of(items.get(pageSize - 1)).encode());
+    }
+
+    // Inserts everything queued so far, batchSize rows per statement batch; throws if the database is down.
+    // Runs on the scheduled writer (and at shutdown), never on a request or listener thread.
+    public void flush() {
+        synchronized (batch) {
+            while (true) {
+                if (batch.isEmpty()) {
+                    pending.drainTo(batch, batchSize);
+                    if (batch.isEmpty()) {
+                        return;
+                    }
+                }
+                repository.insertAll(batch);
+                untrack(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${notifications.store.flush-interval-ms:500}")
+    public void flushPending() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            logger.warn("Could not write notifications, will retry: {}", e.getMessage());
+        }
+    }
+
+    // Drops expired ring entries, and rings left empty, so idle users cost no memory
+    @Scheduled(fixedDelayString = "${notifications.ring.evict-interval-ms:60000}")
+    public void evictExpired() {
+        LocalDateTime cutoff = LocalDateTime.now().minus(ttl);
+        for (String user : rings.keySet()) {
+            rings.computeIfPresent(user, (u, ring) -> ring.expire(cutoff) == 0 ? null : ring);
+        }
+        int deleted = repository.deleteOlderThan(LocalDateTime.now().minus(retention));
+        if (deleted > 0) {
+            logger.debug("Deleted {} notifications past retention", deleted);
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flushPending();
+    }
+
+    private void untrack(List<Notification> notifications) {
+        for (Notification n : notifications) {
+            unflushed.computeIfPresent(n.getTargetUser(), (user, set) -> {
+                set.remove(n);
+                return set.isEmpty() ? null : set;
+            });
+        }
+    }
+
+    private static boolean isOlder(Notification n, Cursor cursor) {
+        int c = n.getCreatedAt().compareTo(cursor.createdAt());
+        return c < 0 || (c == 0 && n.getId().compareTo(cursor.id()) < 0);
+    }
+
+    // Fixed-size circular buffer; the oldest entry is overwritten once full
+    private static final class Ring {
+
+        private final Notification[] slots;
+        private int next;
+        private int size;
+
+        Ring(int capacity) {
+            this.slots = new Notification[capacity];
+        }
+
+        synchronized void add(Notification notification) {
+            slots[next] = notification;
+            next = (next + 1) % slots.length;
+            size = Math.min(size + 1, slots.length);
+        }
+
+        synchronized List<Notification> newestFirst(LocalDateTime cutoff) {
+            List<Notification> live = new ArrayList<>(size);
+            for (int i = 1; i <= size; i++) {
+                Notification n = slots[Math.floorMod(next - i, slots.length)];
+                if (!n.getCreatedAt().isBefore(cutoff)) {
+                    live.add(n);
+                }
+            }
+            // Concurrent listeners can add slightly out of creation order
+            live.sort(NEWEST_FIRST);
+            return live;
+        }
+
+        // Returns how many entries are left
+        synchronized int expire(LocalDateTime cutoff) {
+            while (size > 0) {
+                int oldest = Math.floorMod(next - size, slots.length);
+                if (!slots[oldest].getCreatedAt().isBefore(cutoff)) {
+                    break;
+                }
+                slots[oldest] = null;
+                size--;
+            }
+            return size;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.coffeeshop.notificationservice.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// The last frames published on one channel, oldest overwritten first. Not thread-safe; its SseTopic guards it.
+final class ReplayRing {
+
+    private final SseFrame[] slots;
+    private int next;
+    private int size;
+    // Id of the last frame overwritten, or the sequence value when the ring was created: a client resuming
+    // from it missed exactly what the ring holds
+    private long floor;
+
+    ReplayRing(int capacity, long floor) {
+        this.slots = new SseFrame[capacity];
+        this.floor = floor;
+    }
+
+    void add(SseFrame frame) {
+        if (size == slots.length) {
+            floor = slots[next].id();
+        }
+        slots[next] = frame;
+        next = (next + 1) % slots.length;
+        size = Math.min(size + 1, slots.length);
+    }
+
+    // Oldest first; null unless lastEventId is one this ring handed out (or its floor), since an id from another
+    // node, an earlier run or an older copy of the ring says nothing about what the client missed here
+    List<SseFrame> after(long lastEventId) {
+        boolean known = lastEventId == floor;
+        List<SseFrame> missed = new ArrayList<>();
+        for (int i = size; i >= 1; i--) {
+            SseFrame frame = slots[Math.floorMod(next - i, slots.length)];
+            if (frame.id() > lastEventId) {
+                missed.add(frame);
+            } else if (frame.id() == lastEventId) {
+                known = true;
+            }
+        }
+        return known ? missed : null;
+    }
+
+    // Where a client that has just reloaded everything should resume from
+    long latest() {
+        return size == 0 ? floor : slots[Math.floorMod(next - 1, slots.length)].id();
+    }
+}
@@ -0,0 +1,11 @@
+package com.coffeeshop.notificationservice.service;
+
+// What a connection does when its outbound queue is full
+public enum SlowConsumerPolicy {
+    // Discard the oldest queued event to make room
+    DROP_OLDEST,
+    // Replace a queued event about the same order with the newer one; drop the oldest if there is none
+    COALESCE,
+    // Close the connection; the client reconnects and re-reads its notifications
+    DISCONNECT
+}
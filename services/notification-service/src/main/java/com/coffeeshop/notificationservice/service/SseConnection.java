@@ -0,0 +1,190 @@
+package com.coffeeshop.notificationservice.service;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.Objects;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// One subscriber: a bounded outbound queue in front of its sink. Producers only ever enqueue; at most one
+// drain task per connection runs on the fan-out executor, so a stalled client holds up nobody but itself.
+public class SseConnection {
+
+    public enum Channel { USER, BARISTA }
+
+    private final long id;
+    private final Channel channel;
+    private final String username;
+    private final FrameSink sink;
+    private final int capacity;
+    private final SlowConsumerPolicy policy;
+    private final Executor executor;
+    private final Consumer<SseConnection> onClose;
+
+    // Guarded by itself
+    private final ArrayDeque<SseFrame> queue = new ArrayDeque<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private volatile long lastWrite = System.nanoTime();
+
+    SseConnection(long id, Channel channel, String username, FrameSink sink, int capacity,
+                  SlowConsumerPolicy policy, Executor executor, Consumer<SseConnection> onClose) {
+        this.id = id;
+        this.channel = channel;
+        this.username = username;
+        this.sink = sink;
+        this.capacity = capacity;
+        this.policy = policy;
+        this.executor = executor;
+        this.onClose = onClose;
+    }
+
+    // Never blocks. A full queue is handled by the slow-consumer policy.
+    public void enqueue(SseFrame frame) {
+        if (closed.get()) {
+            return;
+        }
+        boolean fellBehind;
+        synchronized (queue) {
+            fellBehind = queue.size() >= capacity && !makeRoom(frame);
+            if (fellBehind) {
+                dropped.addAndGet(queue.size() + 1L);
+            } else {
+                queue.addLast(frame);
+            }
+        }
+        if (fellBehind) {
+            close();
+        } else {
+            scheduleDrain();
+        }
+    }
+
+    // Returns false when the connection has to go (DISCONNECT)
+    private boolean makeRoom(SseFrame frame) {
+        switch (policy) {
+            case COALESCE -> {
+                String key = frame.coalesceKey();
+                if (key != null) {
+                    for (Iterator<SseFrame> it = queue.descendingIterator(); it.hasNext(); ) {
+                        if (key.equals(it.next().coalesceKey())) {
+                            it.remove();
+                            coalesced.incrementAndGet();
+                            return true;
+                        }
+                    }
+                }
+                queue.pollFirst();
+                dropped.incrementAndGet();
+                return true;
+            }
+            case DROP_OLDEST -> {
+                queue.pollFirst();
+                dropped.incrementAndGet();
+                return true;
+            }
+            default -> {
+                return false;
+            }
+        }
+    }
+
+    private void scheduleDrain() {
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                // Shutting down
+                draining.set(false);
+            }
+        }
+    }
+
+    private void drain() {
+        try {
+            while (!closed.get()) {
+                SseFrame frame;
+                synchronized (queue) {
+                    frame = queue.pollFirst();
+                    if (frame == null) {
+                        // Under the lock, so an enqueue either lands before this poll or schedules a new drain
+                        draining.set(false);
+                        return;
+                    }
+                }
+                sink.send(frame);
+                lastWrite = System.nanoTime();
+                if (frame != SseFrame.HEARTBEAT) {
+                    sent.incrementAndGet();
+                }
+            }
+        } catch (Exception e) {
+            close();
+        }
+    }
+
+    // Called periodically. An idle connection gets a heartbeat, so a peer that has gone away fails a write; one
+    // that hasn't finished a write for deadAfter is stuck on its socket and is closed without waiting any longer.
+    public void heartbeat(long deadAfterNanos) {
+        if (closed.get()) {
+            return;
+        }
+        if (System.nanoTime() - lastWrite > deadAfterNanos) {
+            close();
+            return;
+        }
+        synchronized (queue) {
+            if (!queue.isEmpty()) {
+                // Already has something to write
+                return;
+            }
+            queue.addLast(SseFrame.HEARTBEAT);
+        }
+        scheduleDrain();
+    }
+
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            synchronized (queue) {
+                queue.clear();
+            }
+            try {
+                sink.close();
+            } catch (RuntimeException ignored) {
+                // Already gone
+            }
+            onClose.accept(this);
+        }
+    }
+
+    public long id() { return id; }
+    public Channel channel() { return channel; }
+    public String username() { return username; }
+    public boolean isClosed() { return closed.get(); }
+    public long sent() { return sent.get(); }
+    public long dropped() { return dropped.get(); }
+    public long coalesced() { return coalesced.get(); }
+
+    public int queued() {
+        synchronized (queue) {
+            return queue.size();
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof SseConnection other && other.id == id;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(id);
+    }
+}
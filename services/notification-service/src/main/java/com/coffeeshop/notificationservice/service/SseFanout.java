@@ -0,0 +1,181 @@
+package com.coffeeshop.notificationservice.service;
+
+import com.coffeeshop.notificationservice.service.SseConnection.Channel;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Meter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Routes events to the connections subscribed on this node. Publishing only enqueues, so Kafka listener
+// threads never wait on a client's socket; a small pool of drain tasks does the network writes.
+// The topic maps are this node's subscriber index: whether a notification goes anywhere here is one lookup.
+// Each user's topic, and the baristas', keeps a replay ring so a client resuming with Last-Event-ID gets only
+// the frames it missed; a user's topic is forgotten once they have been gone for the replay window.
+@Component
+public class SseFanout {
+
+    private final Map<String, SseTopic> userTopics = new ConcurrentHashMap<>();
+    private final SseTopic baristaTopic;
+    private final Map<Long, List<Meter>> connectionMeters = new ConcurrentHashMap<>();
+    private final AtomicLong connectionIds = new AtomicLong();
+    // Event ids, increasing across all topics. Starting from the clock keeps them clear of ids a client got from
+    // an earlier run or another node, which a topic answers with a resync rather than a delta.
+    private final AtomicLong eventIds = new AtomicLong(System.currentTimeMillis() * 1000);
+    private final ExecutorService executor;
+    private final MeterRegistry meterRegistry;
+    private final int queueCapacity;
+    private final SlowConsumerPolicy policy;
+    private final int replayCapacity;
+    private final Duration replayWindow;
+    private final Duration deadAfter;
+
+    public SseFanout(MeterRegistry meterRegistry,
+                     @Value("${notifications.sse.fanout-threads:8}") int fanoutThreads,
+                     @Value("${notifications.sse.queue-capacity:256}") int queueCapacity,
+                     @Value("${notifications.sse.slow-consumer-policy:COALESCE}") SlowConsumerPolicy policy,
+                     @Value("${notifications.sse.replay.capacity:100}") int replayCapacity,
+                     @Value("${notifications.sse.replay.window:PT5M}") Duration replayWindow,
+                     @Value("${notifications.sse.dead-after:PT45S}") Duration deadAfter) {
+        this.meterRegistry = meterRegistry;
+        this.queueCapacity = queueCapacity;
+        this.policy = policy;
+        this.replayCapacity = replayCapacity;
+        this.replayWindow = replayWindow;
+        this.deadAfter = deadAfter;
+        this.baristaTopic = new SseTopic(replayCapacity, eventIds);
+        this.executor = Executors.newFixedThreadPool(fanoutThreads, new CustomizableThreadFactory("sse-fanout-"));
+        Gauge.builder("notifications.sse.connections", this, f -> f.connectionCount())
+                .description("Open SSE connections on this node")
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribeUser(String username, Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+        SseConnection connection = openUser(username, new EmitterFrameSink(emitter), lastEventId);
+        bindLifecycle(emitter, connection);
+        return emitter;
+    }
+
+    public SseEmitter subscribeBarista(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(Long.MAX_VALUE);
+        SseConnection connection = openBarista(new EmitterFrameSink(emitter), lastEventId);
+        bindLifecycle(emitter, connection);
+        return emitter;
+    }
+
+    public SseConnection openUser(String username, FrameSink sink, Long lastEventId) {
+        SseConnection connection = open(Channel.USER, username, sink);
+        // Attached inside compute, so the idle sweep can't drop the topic between lookup and attach
+        userTopics.compute(username, (u, topic) -> {
+            SseTopic t = topic != null ? topic : new SseTopic(replayCapacity, eventIds);
+            t.attach(connection, lastEventId);
+            return t;
+        });
+        return connection;
+    }
+
+    public SseConnection openBarista(FrameSink sink, Long lastEventId) {
+        SseConnection connection = open(Channel.BARISTA, null, sink);
+        baristaTopic.attach(connection, lastEventId);
+        return connection;
+    }
+
+    // True while the user is connected here or may still resume; lets callers skip encoding frames nobody needs
+    public boolean tracksUser(String username) {
+        return userTopics.containsKey(username);
+    }
+
+    // Every connection gets the same frame instance; nothing is serialized per subscriber
+    public void publishToUser(String username, String eventName, String orderId, byte[] data) {
+        SseTopic topic = userTopics.get(username);
+        if (topic != null) {
+            topic.publish(eventName, orderId, data);
+        }
+    }
+
+    public void publishToBaristas(String eventName, String orderId, byte[] data) {
+        baristaTopic.publish(eventName, orderId, data);
+    }
+
+    public int connectionCount() {
+        return baristaTopic.connections().size()
+                + userTopics.values().stream().mapToInt(t -> t.connections().size()).sum();
+    }
+
+    // Keeps idle connections provably alive and reaps the ones that aren't, then forgets users who left
+    // longer ago than the replay window
+    @Scheduled(fixedDelayString = "${notifications.sse.heartbeat-interval-ms:15000}")
+    public void heartbeat() {
+        long deadAfterNanos = deadAfter.toNanos();
+        baristaTopic.connections().forEach(c -> c.heartbeat(deadAfterNanos));
+        userTopics.values().forEach(t -> t.connections().forEach(c -> c.heartbeat(deadAfterNanos)));
+
+        long cutoff = System.nanoTime() - replayWindow.toNanos();
+        for (String user : userTopics.keySet()) {
+            userTopics.computeIfPresent(user, (u, topic) -> topic.idleSince(cutoff) ? null : topic);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private SseConnection open(Channel channel, String username, FrameSink sink) {
+        SseConnection connection = new SseConnection(connectionIds.incrementAndGet(), channel, username, sink,
+                queueCapacity, policy, executor, this::remove);
+        registerMeters(connection);
+        return connection;
+    }
+
+    private void bindLifecycle(SseEmitter emitter, SseConnection connection) {
+        emitter.onCompletion(connection::close);
+        emitter.onTimeout(connection::close);
+        emitter.onError(e -> connection.close());
+    }
+
+    private void remove(SseConnection connection) {
+        SseTopic topic = connection.channel() == Channel.BARISTA
+                ? baristaTopic : userTopics.get(connection.username());
+        if (topic != null) {
+            topic.detach(connection);
+        }
+        List<Meter> meters = connectionMeters.remove(connection.id());
+        if (meters != null) {
+            meters.forEach(meterRegistry::remove);
+        }
+    }
+
+    // Per-connection backpressure, tagged by connection id; the meters go away with the connection
+    private void registerMeters(SseConnection connection) {
+        Tags tags = Tags.of("connection", String.valueOf(connection.id()),
+                "channel", connection.channel().name().toLowerCase());
+        connectionMeters.put(connection.id(), List.of(
+                Gauge.builder("notifications.sse.queue.depth", connection, SseConnection::queued)
+                        .description("Events waiting to be written to the connection")
+                        .tags(tags).register(meterRegistry),
+                FunctionCounter.builder("notifications.sse.sent", connection, SseConnection::sent)
+                        .tags(tags).register(meterRegistry),
+                FunctionCounter.builder("notifications.sse.dropped", connection, SseConnection::dropped)
+                        .description("Events discarded because the connection's queue was full")
+                        .tags(tags).register(meterRegistry),
+                FunctionCounter.builder("notifications.sse.coalesced", connection, SseConnection::coalesced)
+                        .description("Queued events replaced by a newer one about the same order")
+                        .tags(tags).register(meterRegistry)));
+    }
+}
@@ -0,0 +1,70 @@
+package com.coffeeshop.notificationservice.service;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+// One SSE event, already in wire format. Built once per notification and shared by every connection it goes
+// to, so the bytes are never modified after construction.
+public final class SseFrame {
+
+    // A comment line: browsers ignore it, but writing it fails once the peer is gone
+    static final SseFrame HEARTBEAT = new SseFrame(0, null, null, ":heartbeat\n\n".getBytes(StandardCharsets.UTF_8));
+
+    private final long id;
+    private final String name;
+    private final String coalesceKey;
+    private final byte[] bytes;
+
+    private SseFrame(long id, String name, String coalesceKey, byte[] bytes) {
+        this.id = id;
+        this.name = name;
+        this.coalesceKey = coalesceKey;
+        this.bytes = bytes;
+    }
+
+    // data must be a single line, which compact JSON always is
+    public static SseFrame of(long id, String name, String orderId, byte[] data) {
+        byte[] event = ("id:" + id + "\nevent:" + name + "\ndata:").getBytes(StandardCharsets.UTF_8);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(event.length + data.length + 2);
+        out.writeBytes(event);
+        out.writeBytes(data);
+        out.write('\n');
+        out.write('\n');
+        return new SseFrame(id, name, orderId == null ? null : name + ":" + orderId, out.toByteArray());
+    }
+
+    // Tells a resuming client that what it missed can't be replayed, so it should reload its notifications
+    static SseFrame resync(long id) {
+        return of(id, "resync", null, "{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Sets the client's last event id without dispatching an event, so a fresh subscriber that drops before any
+    // notification arrives still resumes from here rather than starting over
+    static SseFrame position(long id) {
+        return new SseFrame(id, null, null, ("id:" + id + "\n\n").getBytes(StandardCharsets.UTF_8));
+    }
+
+    // What the client sends back as Last-Event-ID
+    public long id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    // Frames with the same key supersede each other under COALESCE; null when nothing can replace this one
+    public String coalesceKey() {
+        return coalesceKey;
+    }
+
+    // The shared buffer itself, not a copy; callers only write it out
+    byte[] bytes() {
+        return bytes;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,26 @@
+package com.coffeeshop.notificationservice.service;
+
+import com.coffeeshop.notificationservice.model.Notification;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Component;
+
+// Serializes a notification for SSE with the same ObjectMapper Spring MVC's converters use, so the payload
+// looks exactly as it did when each emitter serialized it on its own
+@Component
+public class SseFrameEncoder {
+
+    private final ObjectMapper objectMapper;
+
+    public SseFrameEncoder(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    public byte[] data(Notification notification) {
+        try {
+            return objectMapper.writeValueAsBytes(notification);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize notification " + notification.getId(), e);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.coffeeshop.notificationservice.service;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+// One channel on this node, a user's or the baristas': its open connections and the replay ring that
+// resuming clients catch up from. Publishing and attaching are serialized, so a reconnecting client gets
+// every frame exactly once, either replayed or live.
+final class SseTopic {
+
+    // Concurrent, because a connection closed by its slow-consumer policy leaves while a publish iterates
+    private final Set<SseConnection> connections = ConcurrentHashMap.newKeySet();
+    private final ReplayRing ring;
+    private final AtomicLong sequence;
+    private volatile long idleSince = System.nanoTime();
+
+    SseTopic(int replayCapacity, AtomicLong sequence) {
+        this.sequence = sequence;
+        this.ring = new ReplayRing(replayCapacity, sequence.get());
+    }
+
+    synchronized void publish(String name, String orderId, byte[] data) {
+        SseFrame frame = SseFrame.of(sequence.incrementAndGet(), name, orderId, data);
+        ring.add(frame);
+        connections.forEach(c -> c.enqueue(frame));
+    }
+
+    // A null lastEventId is a fresh subscription, told where it starts; anything we can't account for gets a resync
+    // instead of a delta
+    synchronized void attach(SseConnection connection, Long lastEventId) {
+        if (lastEventId == null) {
+            connection.enqueue(SseFrame.position(ring.latest()));
+        } else {
+            List<SseFrame> missed = ring.after(lastEventId);
+            if (missed == null) {
+                connection.enqueue(SseFrame.resync(ring.latest()));
+            } else {
+                missed.forEach(connection::enqueue);
+            }
+        }
+        if (!connection.isClosed()) {
+            connections.add(connection);
+        }
+    }
+
+    void detach(SseConnection connection) {
+        if (connections.remove(connection) && connections.isEmpty()) {
+            idleSince = System.nanoTime();
+        }
+    }
+
+    // Nobody has been connected since before the cutoff, so nobody can resume from this ring any more
+    boolean idleSince(long cutoffNanos) {
+        return connections.isEmpty() && idleSince - cutoffNanos < 0;
+    }
+
+    Set<SseConnection> connections() {
+        return connections;
+    }
+}
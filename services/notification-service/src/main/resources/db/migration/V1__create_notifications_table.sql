@@ -0,0 +1,16 @@
+CREATE TABLE notifications (
+    id VARCHAR(64) PRIMARY KEY,
+    target_user VARCHAR(255) NOT NULL,
+    type VARCHAR(50) NOT NULL,
+    title VARCHAR(255),
+    message VARCHAR(1000),
+    order_id VARCHAR(64),
+    created_at TIMESTAMP NOT NULL,
+    is_read BOOLEAN NOT NULL DEFAULT FALSE
+);
+
+-- Keyset pagination of a user's notifications over (created_at, id), newest first
+CREATE INDEX idx_notifications_user_created_at_id ON notifications (target_user, created_at DESC, id DESC);
+
+-- Retention sweeps
+CREATE INDEX idx_notifications_created_at ON notifications (created_at);
@@ -0,0 +1,204 @@
+package com.coffeeshop.notificationservice;
+
+import com.coffeeshop.notificationservice.model.Notification;
+import com.coffeeshop.notificationservice.service.FrameSink;
+import com.coffeeshop.notificationservice.service.NotificationStore;
+import com.coffeeshop.notificationservice.service.SseFanout;
+import com.coffeeshop.notificationservice.service.SseFrame;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+// Two nodes in scale-out mode against one broker and one database: each delivers every event to the
+// subscribers attached to it, and both store every notification under the same id
+class ScaleOutIntegrationTest {
+
+    private static final String ORDERS_TOPIC = "orders.created";
+    private static final int ORDERS_PER_USER = 50;
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":\"(\\d+)\"");
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    private ConfigurableApplicationContext nodeA;
+    private ConfigurableApplicationContext nodeB;
+    private DefaultKafkaProducerFactory<String, String> producerFactory;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, ORDERS_TOPIC, "payments.processed");
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @AfterEach
+    void stopNodes() {
+        if (producerFactory != null) {
+            producerFactory.destroy();
+        }
+        if (nodeA != null) {
+            nodeA.close();
+        }
+        if (nodeB != null) {
+            nodeB.close();
+        }
+    }
+
+    @Test
+    void everyEventReachesTheNodeItsSubscriberIsOnAndIsStoredOnce() throws Exception {
+        nodeA = startNode("a");
+        nodeB = startNode("b");
+        producerFactory = new DefaultKafkaProducerFactory<>(Map.of(
+                ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString(),
+                ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class,
+                ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, StringSerializer.class));
+        KafkaTemplate<String, String> template = new KafkaTemplate<>(producerFactory);
+
+        RecordingSink alice = new RecordingSink();
+        RecordingSink bob = new RecordingSink();
+        RecordingSink baristaA = new RecordingSink();
+        RecordingSink baristaB = new RecordingSink();
+        nodeA.getBean(SseFanout.class).openUser("alice", alice, null);
+        nodeA.getBean(SseFanout.class).openBarista(baristaA, null);
+        nodeB.getBean(SseFanout.class).openUser("bob", bob, null);
+        nodeB.getBean(SseFanout.class).openBarista(baristaB, null);
+
+        // New groups start at the end of the topic, so wait until both nodes are reading before the real events
+        long warmupOrder = 0;
+        while (!(seen(nodeA, "warmup") && seen(nodeB, "warmup"))) {
+            template.send(ORDERS_TOPIC, order(--warmupOrder, "warmup")).get();
+            Thread.sleep(200);
+            assertThat(warmupOrder).isGreaterThan(-300);
+        }
+        baristaA.received.clear();
+        baristaB.received.clear();
+
+        for (int i = 1; i <= ORDERS_PER_USER; i++) {
+            template.send(ORDERS_TOPIC, String.valueOf(i), order(i, "alice"));
+            template.send(ORDERS_TOPIC, String.valueOf(ORDERS_PER_USER + i), order(ORDERS_PER_USER + i, "bob"));
+        }
+        template.flush();
+
+        Set<String> aliceOrders = orderIds(1, ORDERS_PER_USER);
+        Set<String> bobOrders = orderIds(ORDERS_PER_USER + 1, 2 * ORDERS_PER_USER);
+        Set<String> allOrders = orderIds(1, 2 * ORDERS_PER_USER);
+        assertThat(await(() -> alice.orderIds().containsAll(aliceOrders))).isTrue();
+        assertThat(await(() -> bob.orderIds().containsAll(bobOrders))).isTrue();
+        assertThat(await(() -> baristaA.orderIds().containsAll(allOrders))).isTrue();
+        assertThat(await(() -> baristaB.orderIds().containsAll(allOrders))).isTrue();
+        assertThat(alice.orderIds()).isEqualTo(aliceOrders);
+        assertThat(alice.received).hasSize(ORDERS_PER_USER);
+        assertThat(bob.orderIds()).isEqualTo(bobOrders);
+        assertThat(bob.received).hasSize(ORDERS_PER_USER);
+
+        // Both nodes wrote every row; the deterministic ids leave one of each
+        nodeA.getBean(NotificationStore.class).flush();
+        nodeB.getBean(NotificationStore.class).flush();
+        JdbcTemplate jdbc = nodeA.getBean(JdbcTemplate.class);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM notifications WHERE target_user = 'alice'", Integer.class))
+                .isEqualTo(ORDERS_PER_USER);
+        assertThat(jdbc.queryForObject("SELECT COUNT(*) FROM notifications WHERE target_user = 'bob'", Integer.class))
+                .isEqualTo(ORDERS_PER_USER);
+        assertThat(jdbc.queryForObject(
+                "SELECT COUNT(*) FROM notifications WHERE target_user = 'barista' AND order_id NOT LIKE '-%'",
+                Integer.class)).isEqualTo(2 * ORDERS_PER_USER);
+
+        // And either node pages through the same history
+        assertThat(historyIds(nodeB, "alice"))
+                .hasSize(ORDERS_PER_USER)
+                .isEqualTo(historyIds(nodeA, "alice"));
+    }
+
+    @Test
+    void aNodeWithoutAnIdRefusesToStart() {
+        assertThatThrownBy(() -> startNode(""))
+                .hasRootCauseInstanceOf(IllegalStateException.class)
+                .rootCause().hasMessageContaining("notifications.scale-out.node-id");
+    }
+
+    private static ConfigurableApplicationContext startNode(String nodeId) {
+        return new SpringApplicationBuilder(NotificationServiceApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.kafka.bootstrap-servers=" + broker.getBrokersAsString(),
+                        "--spring.datasource.url=jdbc:h2:mem:scale-out;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--notifications.scale-out.enabled=true",
+                        "--notifications.scale-out.node-id=" + nodeId,
+                        "--logging.level.com.coffeeshop.notificationservice=INFO");
+    }
+
+    private static boolean seen(ConfigurableApplicationContext node, String user) {
+        return !node.getBean(NotificationStore.class).page(user, null, 1).notifications().isEmpty();
+    }
+
+    private static List<String> historyIds(ConfigurableApplicationContext node, String user) {
+        return node.getBean(NotificationStore.class).page(user, null, 200).notifications().stream()
+                .map(Notification::getId).toList();
+    }
+
+    private static String order(long orderId, String customer) {
+        return "{\"orderId\":" + orderId + ",\"customerUsername\":\"" + customer + "\",\"total\":4.50,\"status\":\"PENDING\"}";
+    }
+
+    private static Set<String> orderIds(int from, int to) {
+        return IntStream.rangeClosed(from, to).mapToObj(String::valueOf).collect(Collectors.toSet());
+    }
+
+    private static boolean await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        return condition.getAsBoolean();
+    }
+
+    private static final class RecordingSink implements FrameSink {
+
+        final List<SseFrame> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(SseFrame frame) {
+            // Events only: skips the id-only frame a fresh subscription starts with, and heartbeats
+            if (frame.name() != null) {
+                received.add(frame);
+            }
+        }
+
+        @Override
+        public void close() {
+        }
+
+        Set<String> orderIds() {
+            return received.stream().map(f -> {
+                Matcher m = ORDER_ID.matcher(f.toString());
+                return m.find() ? m.group(1) : null;
+            }).filter(id -> id != null && !id.startsWith("-")).collect(Collectors.toSet());
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.coffeeshop.notificationservice.service;
+
+import com.coffeeshop.notificationservice.dto.NotificationPage;
+import com.coffeeshop.notificationservice.model.Notification;
+import com.coffeeshop.notificationservice.repo.NotificationRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@JdbcTest(properties = "spring.datasource.url=jdbc:h2:mem:notifications;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(NotificationRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NotificationStoreTest {
+
+    @Autowired
+    private NotificationRepository repository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM notifications");
+    }
+
+    @Test
+    void pagesContinueFromTheRingIntoTheTable() {
+        NotificationStore store = store(5, Duration.ofHours(1));
+        List<String> added = new ArrayList<>();
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).minusMinutes(30);
+        for (int i = 0; i < 23; i++) {
+            // Pairs share a timestamp, so ids have to break the ties
+            Notification n = notification("alice", start.plusSeconds(i / 2));
+            store.add(n);
+            added.add(0, n.getId());
+            store.add(notification("bob", start.plusSeconds(i)));
+            // The scheduled writer's job; the last few stay queued
+            if (i % 3 == 2) {
+                store.flushPending();
+            }
+        }
+
+        List<Notification> seen = pageThrough(store, "alice", 4);
+
+        assertThat(seen).extracting(Notification::getTargetUser).containsOnly("alice");
+        assertThat(seen).hasSize(23).isSortedAccordingTo(NotificationStore.NEWEST_FIRST);
+        assertThat(seen).extracting(Notification::getId).doesNotHaveDuplicates().containsExactlyInAnyOrderElementsOf(added);
+    }
+
+    @Test
+    void readsServeUnwrittenEntriesWithoutWritingThem() {
+        NotificationStore store = store(2, Duration.ofHours(1));
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).minusMinutes(30);
+        for (int i = 0; i < 6; i++) {
+            store.add(notification("erin", start.plusSeconds(i)));
+        }
+
+        // Four of them have left the ring but are still only in the write queue
+        assertThat(pageThrough(store, "erin", 2)).hasSize(6).isSortedAccordingTo(NotificationStore.NEWEST_FIRST);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications", Integer.class)).isZero();
+
+        store.flushPending();
+        assertThat(pageThrough(store, "erin", 4)).hasSize(6).extracting(Notification::getId).doesNotHaveDuplicates();
+    }
+
+    @Test
+    void aFullQueueFailsTheAddInsteadOfWritingInline() {
+        NotificationStore store = store(5, Duration.ofHours(1));
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).minusMinutes(30);
+        for (int i = 0; i < 8; i++) {
+            store.add(notification("frank", start.plusSeconds(i)));
+        }
+
+        assertThatThrownBy(() -> store.add(notification("frank", start.plusSeconds(8))))
+                .hasMessageContaining("queue is full");
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notifications", Integer.class)).isZero();
+        assertThat(store.page("frank", null, 20).notifications()).hasSize(8);
+
+        store.flushPending();
+        store.add(notification("frank", start.plusSeconds(8)));
+        assertThat(store.page("frank", null, 20).notifications()).hasSize(9);
+    }
+
+    @Test
+    void everythingSurvivesARestartOnceFlushed() {
+        NotificationStore before = store(5, Duration.ofHours(1));
+        LocalDateTime start = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).minusMinutes(30);
+        for (int i = 0; i < 12; i++) {
+            before.add(notification("carol", start.plusSeconds(i)));
+            if (i == 5) {
+                before.flushPending();
+            }
+        }
+        before.flushOnShutdown();
+
+        NotificationStore after = store(5, Duration.ofHours(1));
+        assertThat(pageThrough(after, "carol", 5)).hasSize(12).isSortedAccordingTo(NotificationStore.NEWEST_FIRST);
+    }
+
+    @Test
+    void expiredEntriesLeaveMemoryButStayReadable() {
+        NotificationStore store = store(10, Duration.ofMinutes(5));
+        LocalDateTime old = LocalDateTime.now().truncatedTo(ChronoUnit.MICROS).minusMinutes(10);
+        store.add(notification("dave", old));
+        store.add(notification("dave", old.plusSeconds(1)));
+        store.add(notification("dave", LocalDateTime.now().truncatedTo(ChronoUnit.MICROS)));
+
+        store.evictExpired();
+
+        NotificationPage page = store.page("dave", null, 10);
+        assertThat(page.notifications()).hasSize(3).isSortedAccordingTo(NotificationStore.NEWEST_FIRST);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    private NotificationStore store(int ringCapacity, Duration ttl) {
+        return new NotificationStore(repository, ringCapacity, ttl, 50, 8, Duration.ofDays(30), Duration.ofMillis(50));
+    }
+
+    private static List<Notification> pageThrough(NotificationStore store, String user, int limit) {
+        List<Notification> seen = new ArrayList<>();
+        String cursor = null;
+        do {
+            NotificationPage page = store.page(user, cursor, limit);
+            assertThat(page.notifications().size()).isLessThanOrEqualTo(limit);
+            seen.addAll(page.notifications());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+        return seen;
+    }
+
+    private static Notification notification(String user, LocalDateTime createdAt) {
+        Notification n = new Notification("ORDER_CREATED", "Order Received", "Your order has been received", user);
+        n.setCreatedAt(createdAt);
+        return n;
+    }
+}
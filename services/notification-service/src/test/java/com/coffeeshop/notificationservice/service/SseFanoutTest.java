@@ -0,0 +1,311 @@
+package com.coffeeshop.notificationservice.service;
+
+import com.coffeeshop.notificationservice.model.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseFanoutTest {
+
+    private static final SseFrameEncoder ENCODER = new SseFrameEncoder(new ObjectMapper().findAndRegisterModules());
+    private static final Pattern ORDER_ID = Pattern.compile("\"orderId\":\"(\\d+)\"");
+
+    private SseFanout fanout;
+
+    @AfterEach
+    void shutdown() {
+        fanout.shutdown();
+    }
+
+    @Test
+    void aStalledConnectionHoldsUpNobodyElse() throws Exception {
+        fanout = fanout(2, 256, SlowConsumerPolicy.DROP_OLDEST);
+        RecordingSink stalled = new RecordingSink(new CountDownLatch(1));
+        RecordingSink healthy = new RecordingSink(null);
+        fanout.openBarista(stalled, null);
+        fanout.openBarista(healthy, null);
+
+        for (int i = 0; i < 200; i++) {
+            toBaristas(notification("barista", i));
+        }
+
+        assertThat(healthy.awaitCount(200)).isTrue();
+        assertThat(stalled.received).hasSizeLessThanOrEqualTo(1);
+        stalled.release.countDown();
+    }
+
+    @Test
+    void dropOldestKeepsTheNewestEventsOfASlowConnection() throws Exception {
+        fanout = fanout(1, 4, SlowConsumerPolicy.DROP_OLDEST);
+        RecordingSink slow = new RecordingSink(new CountDownLatch(1));
+        SseConnection connection = fanout.openUser("alice", slow, null);
+
+        toUser("alice", notification("alice", 0));
+        assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 1; i <= 10; i++) {
+            toUser("alice", notification("alice", i));
+        }
+        slow.release.countDown();
+
+        assertThat(slow.awaitCount(5)).isTrue();
+        assertThat(slow.orderIds()).containsExactly("0", "7", "8", "9", "10");
+        assertThat(connection.dropped()).isEqualTo(6);
+    }
+
+    @Test
+    void coalesceReplacesQueuedEventsAboutTheSameOrder() throws Exception {
+        fanout = fanout(1, 2, SlowConsumerPolicy.COALESCE);
+        RecordingSink slow = new RecordingSink(new CountDownLatch(1));
+        SseConnection connection = fanout.openUser("bob", slow, null);
+
+        toUser("bob", notification("bob", 1));
+        assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        toUser("bob", notification("bob", 2));
+        toUser("bob", notification("bob", 3));
+        Notification update = notification("bob", 2);
+        update.setType("ORDER_READY");
+        toUser("bob", update);
+        slow.release.countDown();
+
+        assertThat(slow.awaitCount(3)).isTrue();
+        assertThat(slow.orderIds()).containsExactly("1", "3", "2");
+        assertThat(slow.received.get(2).toString()).contains("\"type\":\"ORDER_READY\"");
+        assertThat(connection.coalesced()).isEqualTo(1);
+        assertThat(connection.dropped()).isZero();
+    }
+
+    @Test
+    void disconnectClosesAConnectionThatFallsBehind() throws Exception {
+        fanout = fanout(1, 2, SlowConsumerPolicy.DISCONNECT);
+        RecordingSink slow = new RecordingSink(new CountDownLatch(1));
+        SseConnection connection = fanout.openUser("carol", slow, null);
+
+        toUser("carol", notification("carol", 1));
+        assertThat(slow.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        for (int i = 2; i <= 4; i++) {
+            toUser("carol", notification("carol", i));
+        }
+
+        assertThat(connection.isClosed()).isTrue();
+        slow.release.countDown();
+        assertThat(slow.closed.get()).isTrue();
+        assertThat(fanout.connectionCount()).isZero();
+    }
+
+    @Test
+    void everySubscriberIsSentTheSameEncodedFrame() throws Exception {
+        fanout = fanout(2, 16, SlowConsumerPolicy.COALESCE);
+        RecordingSink first = new RecordingSink(null);
+        RecordingSink second = new RecordingSink(null);
+        fanout.openUser("dave", first, null);
+        fanout.openUser("dave", second, null);
+
+        toUser("dave", notification("dave", 5));
+
+        assertThat(first.awaitCount(1)).isTrue();
+        assertThat(second.awaitCount(1)).isTrue();
+        SseFrame frame = first.received.get(0);
+        assertThat(second.received.get(0)).isSameAs(frame);
+        assertThat(frame.toString()).startsWith("id:" + frame.id() + "\nevent:notification\ndata:{")
+                .endsWith("}\n\n").contains("\"orderId\":\"5\"");
+    }
+
+    @Test
+    void aResumingClientGetsOnlyTheFramesItMissed() throws Exception {
+        fanout = fanout(1, 16, SlowConsumerPolicy.COALESCE);
+        RecordingSink before = new RecordingSink(null);
+        SseConnection first = fanout.openUser("erin", before, null);
+        toUser("erin", notification("erin", 1));
+        toUser("erin", notification("erin", 2));
+        assertThat(before.awaitCount(2)).isTrue();
+        first.close();
+
+        toUser("erin", notification("erin", 3));
+        toUser("erin", notification("erin", 4));
+        RecordingSink after = new RecordingSink(null);
+        fanout.openUser("erin", after, before.received.get(1).id());
+        toUser("erin", notification("erin", 5));
+
+        assertThat(after.awaitCount(3)).isTrue();
+        assertThat(after.orderIds()).containsExactly("3", "4", "5");
+        assertThat(after.received).extracting(SseFrame::id).isSorted();
+    }
+
+    @Test
+    void aResumingClientIsToldToResyncWhenTheRingNoLongerCoversIt() throws Exception {
+        fanout = new SseFanout(new SimpleMeterRegistry(), 1, 16, SlowConsumerPolicy.COALESCE,
+                2, Duration.ofMinutes(5), Duration.ofSeconds(45));
+        RecordingSink before = new RecordingSink(null);
+        SseConnection first = fanout.openUser("frank", before, null);
+        toUser("frank", notification("frank", 1));
+        assertThat(before.awaitCount(1)).isTrue();
+        first.close();
+        for (int i = 2; i <= 4; i++) {
+            toUser("frank", notification("frank", i));
+        }
+
+        // Frame 2 has already been overwritten
+        RecordingSink after = new RecordingSink(null);
+        fanout.openUser("frank", after, before.received.get(0).id());
+
+        assertThat(after.awaitCount(1)).isTrue();
+        assertThat(after.received.get(0).name()).isEqualTo("resync");
+    }
+
+    @Test
+    void anIdIssuedElsewhereGetsAResyncThatCanBeResumedFrom() throws Exception {
+        fanout = fanout(1, 16, SlowConsumerPolicy.COALESCE);
+        fanout.openUser("hana", new RecordingSink(null), null);
+        toUser("hana", notification("hana", 1));
+        long otherNodesId = System.currentTimeMillis() * 1000 - 7;
+
+        RecordingSink moved = new RecordingSink(null);
+        fanout.openUser("hana", moved, otherNodesId);
+        assertThat(moved.awaitCount(1)).isTrue();
+        SseFrame resync = moved.received.get(0);
+        assertThat(resync.name()).isEqualTo("resync");
+
+        toUser("hana", notification("hana", 2));
+        RecordingSink resumed = new RecordingSink(null);
+        fanout.openUser("hana", resumed, resync.id());
+        assertThat(resumed.awaitCount(1)).isTrue();
+        assertThat(resumed.orderIds()).containsExactly("2");
+    }
+
+    @Test
+    void aFreshSubscriberIsToldWhereItStartsAndCanResumeFromThere() throws Exception {
+        fanout = fanout(1, 16, SlowConsumerPolicy.COALESCE);
+        toUser("ivan", notification("ivan", 1));
+        RecordingSink fresh = new RecordingSink(null);
+        SseConnection first = fanout.openUser("ivan", fresh, null);
+        assertThat(fresh.awaitPosition()).isTrue();
+        SseFrame position = fresh.positions.get(0);
+        assertThat(position.toString()).isEqualTo("id:" + position.id() + "\n\n");
+        first.close();
+
+        // Dropped before anything was delivered, yet nothing published since is lost
+        toUser("ivan", notification("ivan", 2));
+        RecordingSink resumed = new RecordingSink(null);
+        fanout.openUser("ivan", resumed, position.id());
+        assertThat(resumed.awaitCount(1)).isTrue();
+        assertThat(resumed.orderIds()).containsExactly("2");
+    }
+
+    @Test
+    void heartbeatClosesAConnectionStuckOnAWrite() throws Exception {
+        fanout = new SseFanout(new SimpleMeterRegistry(), 2, 16, SlowConsumerPolicy.COALESCE,
+                100, Duration.ofMinutes(5), Duration.ofMillis(200));
+        RecordingSink stuck = new RecordingSink(new CountDownLatch(1));
+        RecordingSink idle = new RecordingSink(null);
+        SseConnection stuckConnection = fanout.openBarista(stuck, null);
+        SseConnection idleConnection = fanout.openUser("gina", idle, null);
+
+        toBaristas(notification("barista", 1));
+        assertThat(stuck.sending.await(5, TimeUnit.SECONDS)).isTrue();
+        // A connection with its start frame still queued isn't idle yet and would get no heartbeat
+        assertThat(idle.awaitPosition()).isTrue();
+        fanout.heartbeat();
+        assertThat(idle.awaitCount(1)).isTrue();
+        assertThat(idle.received.get(0).toString()).isEqualTo(":heartbeat\n\n");
+
+        for (int i = 0; i < 10; i++) {
+            Thread.sleep(40);
+            fanout.heartbeat();
+        }
+        assertThat(stuckConnection.isClosed()).isTrue();
+        assertThat(idleConnection.isClosed()).isFalse();
+        stuck.release.countDown();
+    }
+
+    private static SseFanout fanout(int threads, int queueCapacity, SlowConsumerPolicy policy) {
+        return new SseFanout(new SimpleMeterRegistry(), threads, queueCapacity, policy,
+                100, Duration.ofMinutes(5), Duration.ofSeconds(45));
+    }
+
+    private void toUser(String user, Notification notification) {
+        fanout.publishToUser(user, "notification", notification.getOrderId(), ENCODER.data(notification));
+    }
+
+    private void toBaristas(Notification notification) {
+        fanout.publishToBaristas("order-update", notification.getOrderId(), ENCODER.data(notification));
+    }
+
+    private static Notification notification(String user, int orderId) {
+        Notification n = new Notification("ORDER_CREATED", "Order Received", "Order #" + orderId, user);
+        n.setOrderId(String.valueOf(orderId));
+        return n;
+    }
+
+    // Blocks its first send until released, when given a latch. The id-only frame a fresh subscription starts
+    // with is kept apart and never blocks, so received holds only events and heartbeats.
+    private static final class RecordingSink implements FrameSink {
+
+        final List<SseFrame> received = new CopyOnWriteArrayList<>();
+        final List<SseFrame> positions = new CopyOnWriteArrayList<>();
+        final CountDownLatch sending = new CountDownLatch(1);
+        final CountDownLatch release;
+        final AtomicBoolean closed = new AtomicBoolean();
+
+        RecordingSink(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void send(SseFrame frame) throws java.io.IOException {
+            if (frame.name() == null && frame.id() != 0) {
+                positions.add(frame);
+                return;
+            }
+            sending.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new java.io.IOException(e);
+                }
+            }
+            received.add(frame);
+        }
+
+        @Override
+        public void close() {
+            closed.set(true);
+        }
+
+        boolean awaitCount(int count) throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (received.size() < count && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return received.size() == count;
+        }
+
+        boolean awaitPosition() throws InterruptedException {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (positions.isEmpty() && System.nanoTime() < deadline) {
+                Thread.sleep(5);
+            }
+            return !positions.isEmpty();
+        }
+
+        List<String> orderIds() {
+            return received.stream().map(f -> {
+                Matcher m = ORDER_ID.matcher(f.toString());
+                return m.find() ? m.group(1) : null;
+            }).toList();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package com.coffeeshop.notificationservice.service;
+
+import com.coffeeshop.notificationservice.model.Notification;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of getting one notification ready for every subscriber: a shared pre-encoded {@link SseFrame} vs the
+ * previous per-emitter serialization. The pre-encoded path should stay flat as {@link #subscribers} grows,
+ * apart from handing out the same reference. Run {@link #main} with the test classpath (e.g. from the IDE).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SseFrameBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int subscribers;
+
+    private ObjectMapper objectMapper;
+    private SseFrameEncoder encoder;
+    private Notification notification;
+
+    @Setup
+    public void setup() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        encoder = new SseFrameEncoder(objectMapper);
+        notification = new Notification("ORDER_READY", "Order Ready", "Your order #184467 is ready for pickup!",
+                "customer42");
+        notification.setOrderId("184467");
+    }
+
+    @Benchmark
+    public void encodeOnce(Blackhole bh) {
+        SseFrame frame = SseFrame.of(1, "notification", notification.getOrderId(), encoder.data(notification));
+        for (int i = 0; i < subscribers; i++) {
+            bh.consume(frame.bytes());
+        }
+    }
+
+    @Benchmark
+    public void serializePerSubscriber(Blackhole bh) throws Exception {
+        for (int i = 0; i < subscribers; i++) {
+            bh.consume(objectMapper.writeValueAsBytes(notification));
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder().include(SseFrameBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,38 @@
+package com.coffeeshop.orderservice.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.apache.kafka.clients.producer.ProducerRecord;
+import org.apache.kafka.clients.producer.RecordMetadata;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.support.ProducerListener;
+
+// Completion callback for every KafkaTemplate send, so failed async sends are counted instead of lost
+public class KafkaSendMetrics implements ProducerListener<String, Object> {
+
+    private static final Logger log = LoggerFactory.getLogger(KafkaSendMetrics.class);
+    private final MeterRegistry meterRegistry;
+
+    public KafkaSendMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public void onSuccess(ProducerRecord<String, Object> record, RecordMetadata metadata) {
+        counter(record.topic(), "success").increment();
+    }
+
+    @Override
+    public void onError(ProducerRecord<String, Object> record, RecordMetadata metadata, Exception exception) {
+        counter(record.topic(), "error").increment();
+        log.error("Failed to send record with key {} to {}: {}", record.key(), record.topic(), exception.getMessage());
+    }
+
+    private Counter counter(String topic, String result) {
+        return Counter.builder("kafka.producer.sends")
+                .tag("topic", topic)
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+}
@@ -1,20 +1,32 @@
 package com.coffeeshop.orderservice.controller;
 
 import com.coffeeshop.orderservice.dto.AddItemRequest;
-import com.coffeeshop.orderservice.dto.ProductDto;
-import com.coffeeshop.orderservice.event.OrderCreatedEvent;
+import com.coffeeshop.orderservice.dto.OrderPage;
+import com.coffeeshop.orderservice.dto.StatusTransitionRequest;
+import com.coffeeshop.orderservice.dto.StatusTransitionResult;
 import com.coffeeshop.orderservice.model.Order;
-import com.coffeeshop.orderservice.model.OrderItem;
+import com.coffeeshop.orderservice.model.OrderStatus;
 import com.coffeeshop.orderservice.repo.OrderItemRepository;
+import com.coffeeshop.orderservice.repo.OrderQueryRepository;
 import com.coffeeshop.orderservice.repo.OrderRepository;
-import com.coffeeshop.orderservice.service.OrderEventService;
+import com.coffeeshop.orderservice.service.CatalogClient;
+import com.coffeeshop.orderservice.service.OrderExportService;
+import com.coffeeshop.orderservice.service.OrderService;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.oauth2.jwt.Jwt;
 import org.springframework.web.bind.annotation.*;
-import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.reactive.function.client.WebClientResponseException;
+import org.springframework.web.context.request.async.WebAsyncTask;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 
@@ -22,117 +34,203 @@ import java.util.List;
 @RequestMapping("/api/orders")
 public class OrderController {
 
+    private static final Logger log = LoggerFactory.getLogger(OrderController.class);
     private final OrderRepository orderRepo;
     private final OrderItemRepository itemRepo;
-    private final WebClient webClient;   // ✅ 1) لازم يتضاف
-
-    // ✅ 2) لازم webClient يدخل في الـ constructor
-    public OrderController(OrderRepository orderRepo, OrderItemRepository itemRepo, WebClient webClient) {
+    private final OrderQueryRepository orderQueryRepo;
+    private final CatalogClient catalogClient;
+    private final OrderService orderService;
+    private final OrderExportService orderExportService;
+    private final long exportTimeoutMs;
+
+    public OrderController(OrderRepository orderRepo, OrderItemRepository itemRepo, OrderQueryRepository orderQueryRepo,
+                           CatalogClient catalogClient, OrderService orderService,
+                           OrderExportService orderExportService,
+                           @Value("${orders.export.request-timeout-ms:-1}") long exportTimeoutMs) {
         this.orderRepo = orderRepo;
         this.itemRepo = itemRepo;
-        this.webClient = webClient;
+        this.orderQueryRepo = orderQueryRepo;
+        this.catalogClient = catalogClient;
+        this.orderService = orderService;
+        this.orderExportService = orderExportService;
+        this.exportTimeoutMs = exportTimeoutMs;
     }
 
     // ✅ Create Order
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public Order create(@RequestParam String customer) {
-        Order o = new Order();
-        o.setCustomerUsername(customer);
-        o.setStatus("CREATED");
-        o.setTotal(BigDecimal.ZERO);
-        return orderRepo.save(o);
+        return orderService.create(customer);
     }
 
     // ✅ Get Order by id
     @GetMapping("/{id}")
     public Order get(@PathVariable Long id) {
-        return orderRepo.findById(id).orElseThrow();
+        return orderRepo.findWithItemsById(id).orElseThrow();
     }
 
     // ✅ Get my orders using username from JWT token
     @GetMapping("/me")
     public List<Order> myOrders(@AuthenticationPrincipal Jwt jwt) {
         String username = jwt.getClaimAsString("preferred_username");
-        return orderRepo.findByCustomerUsername(username);
+        return orderRepo.findWithItemsByCustomerUsername(username);
+    }
+
+    // ✅ Page through my orders (summaries only, newest first; pass nextCursor back to continue)
+    @GetMapping("/me/page")
+    public OrderPage myOrdersPage(
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        String username = jwt.getClaimAsString("preferred_username");
+        return orderQueryRepo.findPage(username, status, from, to, cursor, limit);
     }
 
     // ✅ Add item to order (fetch product from catalog-service)
     @PostMapping("/{id}/items")
     @ResponseStatus(HttpStatus.CREATED)
-    public Order addItem(
+    public Mono<Order> addItem(
             @PathVariable Long id,
             @RequestBody AddItemRequest req,
             @RequestHeader("Authorization") String authHeader
     ) {
-        Order order = orderRepo.findById(id).orElseThrow();
+        return addItems(id, List.of(req), authHeader);
+    }
 
+    // ✅ Add many items at once: one catalog lookup, one stock reservation, one JDBC batch, no blocked request thread
+    @PostMapping("/{id}/items/bulk")
+    @ResponseStatus(HttpStatus.CREATED)
+    public Mono<Order> addItems(
+            @PathVariable Long id,
+            @RequestBody List<AddItemRequest> items,
+            @RequestHeader("Authorization") String authHeader
+    ) {
         String token = authHeader.replace("Bearer ", "");
+        List<Long> productIds = items.stream().map(AddItemRequest::getProductId).toList();
+
+        return catalogClient.getProducts(productIds, token)
+                .flatMap(products -> catalogClient.reserveStock(id, items, token)
+                        .onErrorMap(WebClientResponseException.Conflict.class,
+                                e -> new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock", e))
+                        .flatMap(reservationId -> Mono.fromCallable(() -> {
+                                    orderService.addItems(id, items, products);
+                                    return orderRepo.findWithItemsById(id).orElseThrow();
+                                })
+                                .subscribeOn(Schedulers.boundedElastic())
+                                // Give the stock back if the items couldn't be added; expiry catches it otherwise
+                                .onErrorResume(e -> catalogClient.releaseReservation(reservationId, token)
+                                        .onErrorResume(releaseError -> Mono.empty())
+                                        .then(Mono.error(e)))));
+    }
 
-        ProductDto product = webClient.get()
-                .uri("http://localhost:8082/api/catalog/items/{pid}", req.getProductId())
-                .headers(h -> h.setBearerAuth(token))
-                .retrieve()
-                .bodyToMono(ProductDto.class)
-                .block();
-
-        OrderItem item = new OrderItem();
-        item.setOrder(order);
-        item.setProductId(product.id);
-        item.setProductName(product.name);
-        item.setUnitPrice(product.price);
-        item.setQuantity(req.getQuantity());
-
-        itemRepo.save(item);
-
-        BigDecimal lineTotal = product.price.multiply(BigDecimal.valueOf(req.getQuantity()));
-        order.setTotal(order.getTotal().add(lineTotal));
-
-        return orderRepo.save(order);
+    // ✅ Check out: no more items after this; payment starts from the OrderCreated event with the final total.
+    // The order's stock is held for payment first, so a cart left open past the reservation TTL either gets its
+    // stock back or is refused with 409 instead of being paid with nothing held.
+    @PostMapping("/{id}/checkout")
+    public Mono<Order> checkout(
+            @PathVariable Long id,
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader("Authorization") String authHeader
+    ) {
+        String username = jwt.getClaimAsString("preferred_username");
+        String token = authHeader.replace("Bearer ", "");
+        return Mono.fromCallable(() -> orderService.needsCheckout(id, username))
+                .subscribeOn(Schedulers.boundedElastic())
+                .flatMap(open -> open
+                        ? catalogClient.holdForCheckout(id, token)
+                                .onErrorMap(WebClientResponseException.Conflict.class,
+                                        e -> new ResponseStatusException(HttpStatus.CONFLICT, "Insufficient stock", e))
+                        : Mono.<Void>empty())
+                .then(Mono.fromCallable(() -> orderService.checkout(id, username))
+                        .subscribeOn(Schedulers.boundedElastic()));
     }
 
     // ✅ Update order status
     @PutMapping("/{id}/status")
-    public Order updateStatus(@PathVariable Long id, @RequestParam String status) {
-        Order order = orderRepo.findById(id).orElseThrow();
-        order.setStatus(status);
-        return orderRepo.save(order);
+    public Order updateStatus(@PathVariable Long id, @RequestParam OrderStatus status) {
+        return orderService.updateStatus(id, status);
+    }
+
+    // ✅ Apply many status transitions at once, each guarded by the status (and optionally version) the caller saw
+    @PostMapping("/status/transitions")
+    public List<StatusTransitionResult> transitionStatuses(@RequestBody List<StatusTransitionRequest> transitions) {
+        return orderService.transitionStatuses(transitions);
     }
 
     // ✅ Get ALL orders (Admin only)
     @GetMapping("/all")
     public List<Order> getAllOrders() {
-        return orderRepo.findAll();
+        return orderRepo.findAllWithItems();
+    }
+
+    // ✅ Page through ALL orders (Admin only)
+    @GetMapping("/page")
+    public OrderPage getOrdersPage(
+            @RequestParam(required = false) String customer,
+            @RequestParam(required = false) OrderStatus status,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "50") int limit
+    ) {
+        return orderQueryRepo.findPage(customer, status, from, to, cursor, limit);
+    }
+
+    // ✅ Export orders with their items as NDJSON (Admin only), streamed straight from a DB cursor.
+    // Runs as its own async task so only the export gets the long (by default unlimited) timeout; every
+    // other async request keeps the server default.
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public WebAsyncTask<Void> exportOrders(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response
+    ) {
+        return new WebAsyncTask<>(exportTimeoutMs, () -> {
+            response.setContentType("application/x-ndjson");
+            orderExportService.exportNdjson(from, to, response.getOutputStream());
+            return null;
+        });
     }
 
     // ✅ Delete order (Admin only)
     @DeleteMapping("/{id}")
     @ResponseStatus(HttpStatus.NO_CONTENT)
-    public void deleteOrder(@PathVariable Long id) {
+    public Mono<Void> deleteOrder(@PathVariable Long id, @RequestHeader("Authorization") String authHeader) {
         Order order = orderRepo.findById(id).orElseThrow();
         // Delete all order items first
         itemRepo.deleteAll(order.getItems());
         orderRepo.delete(order);
+
+        // Same as cancel: put the stock back, and the deletion stands even if this fails
+        return catalogClient.releaseOrderReservations(id, authHeader.replace("Bearer ", ""))
+                .onErrorResume(e -> {
+                    log.warn("Failed to release stock reservations of deleted order {}", id, e);
+                    return Mono.empty();
+                });
     }
 
     // ✅ Cancel order (Customer can cancel their own order)
     @PutMapping("/{id}/cancel")
-    public Order cancelOrder(@PathVariable Long id, @AuthenticationPrincipal Jwt jwt) {
-        Order order = orderRepo.findById(id).orElseThrow();
+    public Mono<Order> cancelOrder(
+            @PathVariable Long id,
+            @AuthenticationPrincipal Jwt jwt,
+            @RequestHeader("Authorization") String authHeader
+    ) {
         String username = jwt.getClaimAsString("preferred_username");
-        
         // Check if user owns this order or is admin
         boolean isAdmin = username.equals("admin1");
-        if (!order.getCustomerUsername().equals(username) && !isAdmin) {
-            throw new RuntimeException("You can only cancel your own orders");
-        }
-        
-        // Only allow cancellation if order is not already completed or cancelled
-        if (order.getStatus().equals("COMPLETED") || order.getStatus().equals("CANCELLED")) {
-            throw new RuntimeException("Cannot cancel order with status: " + order.getStatus());
-        }
-        
-        order.setStatus("CANCELLED");
-        return orderRepo.save(order);
+        Order cancelled = orderService.cancel(id, username, isAdmin);
+
+        // Put the order's reserved stock back; the cancellation itself stands even if this fails
+        return catalogClient.releaseOrderReservations(id, authHeader.replace("Bearer ", ""))
+                .onErrorResume(e -> {
+                    log.warn("Failed to release stock reservations of cancelled order {}", id, e);
+                    return Mono.empty();
+                })
+                .thenReturn(cancelled);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,6 @@
+package com.coffeeshop.orderservice.dto;
+
+import java.util.List;
+
+// nextCursor is null on the last page
+public record OrderPage(List<OrderSummary> orders, String nextCursor) {}
@@ -0,0 +1,10 @@
+package com.coffeeshop.orderservice.dto;
+
+import com.coffeeshop.orderservice.model.OrderStatus;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+// List-view projection of an order, without its items
+public record OrderSummary(Long id, String customerUsername, OrderStatus status, BigDecimal total,
+                           LocalDateTime createdAt, long itemCount) {}
@@ -0,0 +1,23 @@
+package com.coffeeshop.orderservice.dto;
+
+import com.coffeeshop.orderservice.model.OrderStatus;
+
+public class StatusTransitionRequest {
+    private Long orderId;
+    private OrderStatus expectedStatus;
+    private OrderStatus newStatus;
+    // Optional: when set, the order must also still be at this version
+    private Long expectedVersion;
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public OrderStatus getExpectedStatus() { return expectedStatus; }
+    public void setExpectedStatus(OrderStatus expectedStatus) { this.expectedStatus = expectedStatus; }
+
+    public OrderStatus getNewStatus() { return newStatus; }
+    public void setNewStatus(OrderStatus newStatus) { this.newStatus = newStatus; }
+
+    public Long getExpectedVersion() { return expectedVersion; }
+    public void setExpectedVersion(Long expectedVersion) { this.expectedVersion = expectedVersion; }
+}
@@ -0,0 +1,26 @@
+package com.coffeeshop.orderservice.dto;
+
+import com.coffeeshop.orderservice.model.OrderStatus;
+
+public class StatusTransitionResult {
+
+    public enum Outcome { APPLIED, CONFLICT, NOT_FOUND, INVALID_TRANSITION }
+
+    private final Long orderId;
+    private final Outcome outcome;
+    // Status and version after the call; null when the order doesn't exist
+    private final OrderStatus status;
+    private final Long version;
+
+    public StatusTransitionResult(Long orderId, Outcome outcome, OrderStatus status, Long version) {
+        this.orderId = orderId;
+        this.outcome = outcome;
+        this.status = status;
+        this.version = version;
+    }
+
+    public Long getOrderId() { return orderId; }
+    public Outcome getOutcome() { return outcome; }
+    public OrderStatus getStatus() { return status; }
+    public Long getVersion() { return version; }
+}
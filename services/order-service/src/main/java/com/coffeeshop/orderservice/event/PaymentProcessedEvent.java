@@ -0,0 +1,12 @@
+package com.coffeeshop.orderservice.event;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+public class PaymentProcessedEvent {
+    public Long orderId;
+    public String customerUsername;
+    public BigDecimal amount;
+    public String status; // SUCCESS, FAILED
+    public LocalDateTime processedAt;
+}
@@ -0,0 +1,9 @@
+package com.coffeeshop.orderservice.event;
+
+import java.time.LocalDateTime;
+
+public class ProductChangedEvent {
+    public Long productId;
+    public String changeType; // CREATED, UPDATED, DELETED
+    public LocalDateTime changedAt;
+}
@@ -0,0 +1,36 @@
+package com.coffeeshop.orderservice.listener;
+
+import com.coffeeshop.orderservice.event.PaymentProcessedEvent;
+import com.coffeeshop.orderservice.service.OrderService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+public class PaymentProcessedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentProcessedListener.class);
+    private final OrderService orderService;
+
+    public PaymentProcessedListener(OrderService orderService) {
+        this.orderService = orderService;
+    }
+
+    // Applies a whole poll of payment results with one UPDATE
+    @KafkaListener(
+            topics = "payments.processed",
+            groupId = "order-service-payments",
+            containerFactory = "batchKafkaListenerContainerFactory")
+    public void handlePaymentsProcessed(List<PaymentProcessedEvent> events) {
+        List<Long> paidOrderIds = events.stream()
+                .filter(e -> "SUCCESS".equals(e.status) || "COMPLETED".equals(e.status))
+                .map(e -> e.orderId)
+                .distinct()
+                .toList();
+        int updated = orderService.markPaid(paidOrderIds);
+        log.info("Applied {} payment results, {} orders marked PAID", events.size(), updated);
+    }
+}
@@ -0,0 +1,46 @@
+package com.coffeeshop.orderservice.listener;
+
+import com.coffeeshop.orderservice.event.ProductChangedEvent;
+import com.coffeeshop.orderservice.service.ProductCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+public class ProductChangedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangedListener.class);
+    private final ProductCache productCache;
+    private final String groupId;
+
+    // Every instance has to see every change, so each one joins with its own group id. Configure a stable one
+    // per instance so a restart resumes the same group; otherwise every start gets a fresh, unique id and the
+    // broker expires the old group once its offsets retention passes. Never a shared default: instances that
+    // end up in one group would each see only part of the changes.
+    public ProductChangedListener(ProductCache productCache,
+                                  @Value("${catalog.cache.group-id:}") String groupId) {
+        this.productCache = productCache;
+        this.groupId = groupId.isBlank() ? "order-service-product-cache-" + UUID.randomUUID() : groupId;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    @KafkaListener(
+            topics = "catalog.products.changed",
+            groupId = "#{__listener.groupId}",
+            properties = "auto.offset.reset=latest")
+    public void handleProductChanged(ProductChangedEvent event) {
+        log.debug("Product {} {}, evicting from cache", event.productId, event.changeType);
+        if (event.productId == null) {
+            productCache.invalidateAll();
+        } else {
+            productCache.invalidate(event.productId);
+        }
+    }
+}
@@ -10,14 +10,17 @@ import java.util.List;
 @Table(name = "orders")
 public class Order {
 
-    @Id @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(name="customer_username", nullable=false, length=100)
     private String customerUsername;
 
+    @Enumerated(EnumType.STRING)
     @Column(nullable=false, length=30)
-    private String status;
+    private OrderStatus status;
 
     @Column(nullable=false, precision=10, scale=2)
     private BigDecimal total;
@@ -25,13 +28,21 @@ public class Order {
     @Column(name="created_at", nullable=false)
     private LocalDateTime createdAt;
 
+    // Number of order_items rows, kept in step with total by OrderItemBatchRepository
+    @Column(name="item_count", nullable=false)
+    private int itemCount;
+
+    @Version
+    @Column(nullable=false)
+    private Long version;
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     private List<OrderItem> items = new ArrayList<>();
 
     @PrePersist
     void prePersist() {
         if (createdAt == null) createdAt = LocalDateTime.now();
-        if (status == null) status = "CREATED";
+        if (status == null) status = OrderStatus.CREATED;
         if (total == null) total = BigDecimal.ZERO;
     }
 
@@ -41,14 +52,18 @@ public class Order {
     public String getCustomerUsername(){ return customerUsername; }
     public void setCustomerUsername(String v){ customerUsername = v; }
 
-    public String getStatus(){ return status; }
-    public void setStatus(String v){ status = v; }
+    public OrderStatus getStatus(){ return status; }
+    public void setStatus(OrderStatus v){ status = v; }
 
     public BigDecimal getTotal(){ return total; }
     public void setTotal(BigDecimal v){ total = v; }
 
     public LocalDateTime getCreatedAt(){ return createdAt; }
 
+    public int getItemCount(){ return itemCount; }
+
+    public Long getVersion(){ return version; }
+
     public List<OrderItem> getItems(){ return items; }
     public void setItems(List<OrderItem> items){ this.items = items; }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.coffeeshop.orderservice.model;
+
+import java.util.EnumSet;
+import java.util.Set;
+
+// Order lifecycle; COMPLETED and CANCELLED are terminal
+public enum OrderStatus {
+    CREATED,
+    PENDING,
+    PAID,
+    PROCESSING,
+    COMPLETED,
+    CANCELLED;
+
+    public Set<OrderStatus> nextStatuses() {
+        return switch (this) {
+            case CREATED -> EnumSet.of(PENDING, PAID, CANCELLED);
+            case PENDING -> EnumSet.of(PAID, CANCELLED);
+            case PAID -> EnumSet.of(PROCESSING, COMPLETED, CANCELLED);
+            case PROCESSING -> EnumSet.of(COMPLETED, CANCELLED);
+            case COMPLETED, CANCELLED -> EnumSet.noneOf(OrderStatus.class);
+        };
+    }
+
+    public boolean canTransitionTo(OrderStatus next) {
+        return nextStatuses().contains(next);
+    }
+}
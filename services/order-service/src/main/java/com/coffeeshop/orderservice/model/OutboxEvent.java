@@ -0,0 +1,46 @@
+package com.coffeeshop.orderservice.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "order_outbox")
+public class OutboxEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "order_outbox_seq")
+    @SequenceGenerator(name = "order_outbox_seq", sequenceName = "order_outbox_id_seq", allocationSize = 50)
+    private Long id;
+
+    // Order id, also used as the Kafka record key so per-order ordering is kept
+    @Column(name="aggregate_id", nullable=false)
+    private Long aggregateId;
+
+    @Column(nullable=false, length=100)
+    private String topic;
+
+    @Column(nullable=false, columnDefinition="TEXT")
+    private String payload;
+
+    @Column(name="created_at", nullable=false)
+    private LocalDateTime createdAt;
+
+    @PrePersist
+    void prePersist() {
+        if (createdAt == null) createdAt = LocalDateTime.now();
+    }
+
+    // getters/setters
+    public Long getId(){ return id; }
+
+    public Long getAggregateId(){ return aggregateId; }
+    public void setAggregateId(Long v){ aggregateId = v; }
+
+    public String getTopic(){ return topic; }
+    public void setTopic(String v){ topic = v; }
+
+    public String getPayload(){ return payload; }
+    public void setPayload(String v){ payload = v; }
+
+    public LocalDateTime getCreatedAt(){ return createdAt; }
+}
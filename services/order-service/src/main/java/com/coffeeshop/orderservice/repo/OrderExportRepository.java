@@ -0,0 +1,60 @@
+package com.coffeeshop.orderservice.repo;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+@Repository
+public class OrderExportRepository {
+
+    private static final String SELECT_SQL = """
+            SELECT o.id, o.customer_username, o.status, o.total, o.created_at,
+                   i.id AS item_id, i.product_id, i.product_name, i.unit_price, i.quantity
+              FROM orders o
+              LEFT JOIN order_items i ON i.order_id = o.id""";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int fetchSize;
+
+    public OrderExportRepository(JdbcTemplate jdbcTemplate,
+                                 @Value("${orders.export.fetch-size:1000}") int fetchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.fetchSize = fetchSize;
+    }
+
+    // Rows come in creation order (id breaks ties, walking idx_orders_created_at_id backwards), so all items
+    // of an order are adjacent and the export reads chronologically.
+    // The Postgres driver only uses a server-side cursor (fetchSize rows per round trip) inside a transaction;
+    // outside one it reads the whole result into memory.
+    public void streamOrdersWithItems(LocalDateTime from, LocalDateTime to, RowCallbackHandler handler) {
+        StringBuilder sql = new StringBuilder(SELECT_SQL).append(" WHERE 1 = 1");
+        List<Timestamp> args = new ArrayList<>(2);
+        if (from != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(" ORDER BY o.created_at, o.id, i.id");
+
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(sql.toString(),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            for (int i = 0; i < args.size(); i++) {
+                ps.setTimestamp(i + 1, args.get(i));
+            }
+            return ps;
+        }, handler);
+    }
+}
@@ -0,0 +1,44 @@
+package com.coffeeshop.orderservice.repo;
+
+import com.coffeeshop.orderservice.model.OrderItem;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+@Repository
+public class OrderItemBatchRepository {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO order_items (order_id, product_id, product_name, unit_price, quantity) VALUES (?, ?, ?, ?, ?)";
+
+    // Relative update, so concurrent adds to the same order serialize on the row lock instead of overwriting each other.
+    // Only orders that haven't been checked out yet take items.
+    private static final String ADD_TO_ORDER_SQL =
+            "UPDATE orders SET total = total + ?, item_count = item_count + ?, version = version + 1 "
+                    + "WHERE id = ? AND status = 'CREATED'";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderItemBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Returns false when the order doesn't exist or is past CREATED
+    public boolean addToOrder(Long orderId, BigDecimal amount, int itemCount) {
+        return jdbcTemplate.update(ADD_TO_ORDER_SQL, amount, itemCount, orderId) == 1;
+    }
+
+    // Insert all items in one JDBC batch without attaching them to the persistence context or loading the order.
+    // Ids come from the column default (nextval on order_items_id_seq), so they leave gaps in the entity's pooled ranges.
+    public void insertAll(Long orderId, List<OrderItem> items) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, items, items.size(), (ps, item) -> {
+            ps.setLong(1, orderId);
+            ps.setLong(2, item.getProductId());
+            ps.setString(3, item.getProductName());
+            ps.setBigDecimal(4, item.getUnitPrice());
+            ps.setInt(5, item.getQuantity());
+        });
+    }
+}
@@ -0,0 +1,103 @@
+package com.coffeeshop.orderservice.repo;
+
+import com.coffeeshop.orderservice.dto.OrderPage;
+import com.coffeeshop.orderservice.dto.OrderSummary;
+import com.coffeeshop.orderservice.model.OrderStatus;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+@Repository
+public class OrderQueryRepository {
+
+    public static final int MAX_PAGE_SIZE = 200;
+
+    private static final RowMapper<OrderSummary> SUMMARY_MAPPER = (rs, i) -> new OrderSummary(
+            rs.getLong("id"),
+            rs.getString("customer_username"),
+            OrderStatus.valueOf(rs.getString("status")),
+            rs.getBigDecimal("total"),
+            rs.getTimestamp("created_at").toLocalDateTime(),
+            rs.getLong("item_count"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderQueryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Keyset pagination, newest first: the cursor is the (created_at, id) of the last row already returned,
+    // so every page is an index range scan no matter how deep the client has scrolled
+    public OrderPage findPage(String customer, OrderStatus status, LocalDateTime from, LocalDateTime to,
+                              String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        StringBuilder sql = new StringBuilder("""
+                SELECT o.id, o.customer_username, o.status, o.total, o.created_at, o.item_count
+                  FROM orders o
+                 WHERE 1 = 1""");
+        List<Object> args = new ArrayList<>();
+        if (customer != null) {
+            sql.append(" AND o.customer_username = ?");
+            args.add(customer);
+        }
+        if (status != null) {
+            sql.append(" AND o.status = ?");
+            args.add(status.name());
+        }
+        if (from != null) {
+            sql.append(" AND o.created_at >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND o.created_at < ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor after = Cursor.decode(cursor);
+            sql.append(" AND (o.created_at, o.id) < (?, ?)");
+            args.add(Timestamp.valueOf(after.createdAt()));
+            args.add(after.id());
+        }
+        // One extra row tells us whether there is a next page
+        sql.append(" ORDER BY o.created_at DESC, o.id DESC LIMIT ?");
+        args.add(pageSize + 1);
+
+        List<OrderSummary> rows = jdbcTemplate.query(sql.toString(), SUMMARY_MAPPER, args.toArray());
+        if (rows.size() <= pageSize) {
+            return new OrderPage(rows, null);
+        }
+        List<OrderSummary> page = rows.subList(0, pageSize);
+        OrderSummary last = page.get(pageSize - 1);
+        return new OrderPage(List.copyOf(page), new Cursor(last.createdAt(), last.id()).encode());
+    }
+
+    // Opaque to clients: base64url of "<created_at>|<id>"
+    record Cursor(LocalDateTime createdAt, long id) {
+
+        String encode() {
+            String raw = createdAt + "|" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+
+        static Cursor decode(String cursor) {
+            try {
+                String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+                int sep = raw.lastIndexOf('|');
+                return new Cursor(LocalDateTime.parse(raw.substring(0, sep)), Long.parseLong(raw.substring(sep + 1)));
+            } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+                // The client's input, not our failure
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor: " + cursor);
+            }
+        }
+    }
+}
@@ -1,11 +1,33 @@
 package com.coffeeshop.orderservice.repo;
 
 import com.coffeeshop.orderservice.model.Order;
+import com.coffeeshop.orderservice.model.OrderStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface OrderRepository extends JpaRepository<Order, Long> {
 
     List<Order> findByCustomerUsername(String customerUsername);
+
+    // Orders and their items in one query instead of one extra SELECT per order during serialization
+    @Query("select o from Order o left join fetch o.items where o.id = :id")
+    Optional<Order> findWithItemsById(@Param("id") Long id);
+
+    @Query("select o from Order o left join fetch o.items where o.customerUsername = :customer order by o.createdAt desc, o.id desc")
+    List<Order> findWithItemsByCustomerUsername(@Param("customer") String customerUsername);
+
+    @Query("select o from Order o left join fetch o.items order by o.createdAt desc, o.id desc")
+    List<Order> findAllWithItems();
+
+    // Set-based transition; rows not in one of the 'from' statuses are left alone
+    @Modifying
+    @Query("update Order o set o.status = :to, o.version = o.version + 1 where o.id in :ids and o.status in :from")
+    int transitionAll(@Param("ids") Collection<Long> ids, @Param("from") Collection<OrderStatus> from,
+                      @Param("to") OrderStatus to);
 }
\ No newline at end of file
@@ -0,0 +1,88 @@
+package com.coffeeshop.orderservice.repo;
+
+import com.coffeeshop.orderservice.dto.StatusTransitionRequest;
+import com.coffeeshop.orderservice.model.OrderStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Array;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Repository
+public class OrderStatusBatchRepository {
+
+    // Requests are passed as parallel arrays and joined against orders, so the whole set is one statement.
+    // A row only changes when it still has the expected status (and version, if one was given).
+    private static final String TRANSITION_SQL = """
+            UPDATE orders o
+               SET status = r.new_status, version = o.version + 1
+              FROM unnest(?::bigint[], ?::varchar[], ?::varchar[], ?::bigint[])
+                   AS r(order_id, expected_status, new_status, expected_version)
+             WHERE o.id = r.order_id
+               AND o.status = r.expected_status
+               AND (r.expected_version IS NULL OR o.version = r.expected_version)
+            RETURNING o.id, o.status, o.version""";
+
+    private static final String CURRENT_SQL = "SELECT id, status, version FROM orders WHERE id = ANY(?::bigint[])";
+
+    public record StatusRow(Long id, OrderStatus status, long version) {}
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OrderStatusBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    // Returns the rows that were updated, keyed by order id
+    public Map<Long, StatusRow> applyTransitions(List<StatusTransitionRequest> requests) {
+        int n = requests.size();
+        Long[] ids = new Long[n];
+        String[] expected = new String[n];
+        String[] next = new String[n];
+        Long[] versions = new Long[n];
+        for (int i = 0; i < n; i++) {
+            StatusTransitionRequest req = requests.get(i);
+            ids[i] = req.getOrderId();
+            expected[i] = req.getExpectedStatus().name();
+            next[i] = req.getNewStatus().name();
+            versions[i] = req.getExpectedVersion();
+        }
+        return jdbcTemplate.execute((Connection con) -> {
+            try (PreparedStatement ps = con.prepareStatement(TRANSITION_SQL)) {
+                ps.setArray(1, con.createArrayOf("bigint", ids));
+                ps.setArray(2, con.createArrayOf("varchar", expected));
+                ps.setArray(3, con.createArrayOf("varchar", next));
+                ps.setArray(4, con.createArrayOf("bigint", versions));
+                return readRows(ps);
+            }
+        });
+    }
+
+    public Map<Long, StatusRow> findCurrent(Collection<Long> orderIds) {
+        return jdbcTemplate.execute((Connection con) -> {
+            try (PreparedStatement ps = con.prepareStatement(CURRENT_SQL)) {
+                Array ids = con.createArrayOf("bigint", orderIds.toArray());
+                ps.setArray(1, ids);
+                return readRows(ps);
+            }
+        });
+    }
+
+    private static Map<Long, StatusRow> readRows(PreparedStatement ps) throws SQLException {
+        Map<Long, StatusRow> rows = new HashMap<>();
+        try (ResultSet rs = ps.executeQuery()) {
+            while (rs.next()) {
+                long id = rs.getLong(1);
+                rows.put(id, new StatusRow(id, OrderStatus.valueOf(rs.getString(2)), rs.getLong(3)));
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,18 @@
+package com.coffeeshop.orderservice.repo;
+
+import com.coffeeshop.orderservice.model.OutboxEvent;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+public interface OutboxEventRepository extends JpaRepository<OutboxEvent, Long> {
+
+    // SKIP LOCKED lets several order-service instances drain the outbox without blocking each other
+    @Query(value = "SELECT * FROM order_outbox ORDER BY id LIMIT :limit FOR UPDATE SKIP LOCKED", nativeQuery = true)
+    List<OutboxEvent> lockNextBatch(int limit);
+
+    @Query("select min(e.createdAt) from OutboxEvent e")
+    LocalDateTime findOldestCreatedAt();
+}
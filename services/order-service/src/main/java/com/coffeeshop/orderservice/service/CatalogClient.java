@@ -0,0 +1,93 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.dto.AddItemRequest;
+import com.coffeeshop.orderservice.dto.ProductDto;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Mono;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Service
+public class CatalogClient {
+
+    private final WebClient webClient;
+    private final ProductCache productCache;
+    private final String catalogBaseUrl;
+
+    public CatalogClient(WebClient webClient, ProductCache productCache,
+                         @Value("${catalog.base-url:http://localhost:8082}") String catalogBaseUrl) {
+        this.webClient = webClient;
+        this.productCache = productCache;
+        this.catalogBaseUrl = catalogBaseUrl;
+    }
+
+    // Resolve product ids from the local cache, fetching only the misses with a single multi-get
+    public Mono<Map<Long, ProductDto>> getProducts(Collection<Long> productIds, String token) {
+        Map<Long, ProductDto> cached = productCache.getAllPresent(productIds);
+        List<Long> missing = productIds.stream().distinct().filter(id -> !cached.containsKey(id)).toList();
+        if (missing.isEmpty()) {
+            return Mono.just(cached);
+        }
+        return webClient.get()
+                .uri(catalogBaseUrl + "/api/catalog/items?ids={ids}",
+                        missing.stream().map(String::valueOf).collect(Collectors.joining(",")))
+                .headers(h -> h.setBearerAuth(token))
+                .retrieve()
+                .bodyToFlux(ProductDto.class)
+                .collectMap(p -> p.id, Function.identity())
+                .map(fetched -> {
+                    productCache.putAll(fetched);
+                    Map<Long, ProductDto> products = new HashMap<>(cached);
+                    products.putAll(fetched);
+                    return products;
+                });
+    }
+
+    // Holds stock for the items in catalog-service; fails with a 409 WebClientResponseException when something is short
+    public Mono<Long> reserveStock(Long orderId, List<AddItemRequest> items, String token) {
+        List<Map<String, Object>> lines = items.stream()
+                .map(i -> Map.<String, Object>of("productId", i.getProductId(), "quantity", i.getQuantity()))
+                .toList();
+        return webClient.post()
+                .uri(catalogBaseUrl + "/api/catalog/reservations")
+                .headers(h -> h.setBearerAuth(token))
+                .bodyValue(Map.of("orderId", orderId, "items", lines))
+                .retrieve()
+                .bodyToMono(StockReservation.class)
+                .map(StockReservation::reservationId);
+    }
+
+    public Mono<Void> releaseReservation(Long reservationId, String token) {
+        return webClient.delete()
+                .uri(catalogBaseUrl + "/api/catalog/reservations/{id}", reservationId)
+                .headers(h -> h.setBearerAuth(token))
+                .retrieve()
+                .bodyToMono(Void.class);
+    }
+
+    // Keeps the order's stock held while payment runs, taking expired holds again; 409 when that's no longer possible
+    public Mono<Void> holdForCheckout(Long orderId, String token) {
+        return webClient.post()
+                .uri(catalogBaseUrl + "/api/catalog/reservations/checkout?orderId={orderId}", orderId)
+                .headers(h -> h.setBearerAuth(token))
+                .retrieve()
+                .bodyToMono(Void.class);
+    }
+
+    public Mono<Void> releaseOrderReservations(Long orderId, String token) {
+        return webClient.delete()
+                .uri(catalogBaseUrl + "/api/catalog/reservations?orderId={orderId}", orderId)
+                .headers(h -> h.setBearerAuth(token))
+                .retrieve()
+                .bodyToMono(Void.class);
+    }
+
+    private record StockReservation(Long reservationId) {}
+}
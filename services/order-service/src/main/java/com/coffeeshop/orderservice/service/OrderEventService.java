@@ -1,23 +1,46 @@
 package com.coffeeshop.orderservice.service;
 
 import com.coffeeshop.orderservice.event.OrderCreatedEvent;
+import com.coffeeshop.orderservice.model.OutboxEvent;
+import com.coffeeshop.orderservice.repo.OutboxEventRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.kafka.core.KafkaTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
 @Service
 public class OrderEventService {
-    
+
+    public static final String ORDERS_CREATED_TOPIC = "orders.created";
+
     private static final Logger log = LoggerFactory.getLogger(OrderEventService.class);
-    private final KafkaTemplate<String, Object> kafkaTemplate;
-    
-    public OrderEventService(KafkaTemplate<String, Object> kafkaTemplate) {
-        this.kafkaTemplate = kafkaTemplate;
+    private final OutboxEventRepository outboxRepo;
+    private final ObjectMapper objectMapper;
+
+    public OrderEventService(OutboxEventRepository outboxRepo, ObjectMapper objectMapper) {
+        this.outboxRepo = outboxRepo;
+        this.objectMapper = objectMapper;
     }
-    
+
+    // Only writes the outbox row; OrderOutboxRelay ships it to Kafka after the transaction commits
+    @Transactional(propagation = Propagation.MANDATORY)
     public void publishOrderCreated(OrderCreatedEvent event) {
-        log.info("Publishing OrderCreated event for order: {}", event.orderId);
-        kafkaTemplate.send("orders.created", event);
+        log.info("Queueing OrderCreated event for order: {}", event.orderId);
+        OutboxEvent outboxEvent = new OutboxEvent();
+        outboxEvent.setAggregateId(event.orderId);
+        outboxEvent.setTopic(ORDERS_CREATED_TOPIC);
+        outboxEvent.setPayload(toJson(event));
+        outboxRepo.save(outboxEvent);
+    }
+
+    private String toJson(Object event) {
+        try {
+            return objectMapper.writeValueAsString(event);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize event", e);
+        }
     }
 }
@@ -0,0 +1,105 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.repo.OrderExportRepository;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+
+@Service
+public class OrderExportService {
+
+    // Flush every this many orders so the client keeps receiving data while the cursor advances
+    private static final int FLUSH_EVERY = 500;
+
+    private final OrderExportRepository exportRepo;
+    private final ObjectMapper objectMapper;
+
+    public OrderExportService(OrderExportRepository exportRepo, ObjectMapper objectMapper) {
+        this.exportRepo = exportRepo;
+        this.objectMapper = objectMapper;
+    }
+
+    // Writes one JSON object per order (items inlined) per line, straight from the cursor:
+    // at most one row and one partially written order are held at any time
+    @Transactional(readOnly = true)
+    public void exportNdjson(LocalDateTime from, LocalDateTime to, OutputStream out) throws IOException {
+        try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+            gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Lines are separated by our own '\n', not Jackson's default space between root values
+            gen.setRootValueSeparator(null);
+            NdjsonWriter writer = new NdjsonWriter(gen);
+            exportRepo.streamOrdersWithItems(from, to, rs -> {
+                try {
+                    writer.row(rs);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.finish();
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static final class NdjsonWriter {
+        private final JsonGenerator gen;
+        private long currentOrderId = -1;
+        private long written;
+
+        NdjsonWriter(JsonGenerator gen) {
+            this.gen = gen;
+        }
+
+        void row(ResultSet rs) throws SQLException, IOException {
+            long orderId = rs.getLong("id");
+            if (orderId != currentOrderId) {
+                endOrder();
+                currentOrderId = orderId;
+                gen.writeStartObject();
+                gen.writeNumberField("id", orderId);
+                gen.writeStringField("customerUsername", rs.getString("customer_username"));
+                gen.writeStringField("status", rs.getString("status"));
+                gen.writeNumberField("total", rs.getBigDecimal("total"));
+                gen.writeFieldName("createdAt");
+                gen.writeObject(rs.getTimestamp("created_at").toLocalDateTime());
+                gen.writeArrayFieldStart("items");
+            }
+            long itemId = rs.getLong("item_id");
+            if (!rs.wasNull()) {
+                gen.writeStartObject();
+                gen.writeNumberField("id", itemId);
+                gen.writeNumberField("productId", rs.getLong("product_id"));
+                gen.writeStringField("productName", rs.getString("product_name"));
+                gen.writeNumberField("unitPrice", rs.getBigDecimal("unit_price"));
+                gen.writeNumberField("quantity", rs.getInt("quantity"));
+                gen.writeEndObject();
+            }
+        }
+
+        private void endOrder() throws IOException {
+            if (currentOrderId < 0) {
+                return;
+            }
+            gen.writeEndArray();
+            gen.writeEndObject();
+            gen.writeRaw('\n');
+            // The first line goes out immediately, then in chunks
+            if (written++ % FLUSH_EVERY == 0) {
+                gen.flush();
+            }
+        }
+
+        void finish() throws IOException {
+            endOrder();
+            gen.flush();
+        }
+    }
+}
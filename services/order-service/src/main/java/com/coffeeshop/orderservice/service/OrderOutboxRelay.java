@@ -0,0 +1,143 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.event.OrderCreatedEvent;
+import com.coffeeshop.orderservice.model.OutboxEvent;
+import com.coffeeshop.orderservice.repo.OutboxEventRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Drains order_outbox to Kafka in batches, off the request path
+@Component
+public class OrderOutboxRelay {
+
+    private static final Logger log = LoggerFactory.getLogger(OrderOutboxRelay.class);
+    private static final Map<String, Class<?>> EVENT_TYPES = Map.of(
+            OrderEventService.ORDERS_CREATED_TOPIC, OrderCreatedEvent.class);
+
+    private final OutboxEventRepository outboxRepo;
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final long sendTimeoutMs;
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong oldestPendingAgeMs = new AtomicLong();
+    private final Counter published;
+    private final Counter failures;
+    private final Timer lag;
+
+    public OrderOutboxRelay(OutboxEventRepository outboxRepo,
+                            KafkaTemplate<String, Object> kafkaTemplate,
+                            ObjectMapper objectMapper,
+                            TransactionTemplate transactionTemplate,
+                            MeterRegistry meterRegistry,
+                            @Value("${orders.outbox.batch-size:500}") int batchSize,
+                            @Value("${orders.outbox.send-timeout-ms:30000}") long sendTimeoutMs) {
+        this.outboxRepo = outboxRepo;
+        this.kafkaTemplate = kafkaTemplate;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = transactionTemplate;
+        this.batchSize = batchSize;
+        this.sendTimeoutMs = sendTimeoutMs;
+
+        Gauge.builder("orders.outbox.pending", pending, AtomicLong::get)
+                .description("Outbox rows not yet relayed to Kafka")
+                .register(meterRegistry);
+        Gauge.builder("orders.outbox.oldest.age", oldestPendingAgeMs, AtomicLong::get)
+                .baseUnit("milliseconds")
+                .description("Age of the oldest outbox row still waiting to be relayed")
+                .register(meterRegistry);
+        this.published = Counter.builder("orders.outbox.published").register(meterRegistry);
+        this.failures = Counter.builder("orders.outbox.failures").register(meterRegistry);
+        this.lag = Timer.builder("orders.outbox.lag")
+                .description("Time between the order transaction and the event being acknowledged by Kafka")
+                .register(meterRegistry);
+    }
+
+    // The fixed delay is the linger: rows written in between are shipped together
+    @Scheduled(fixedDelayString = "${orders.outbox.linger-ms:200}")
+    public void drain() {
+        try {
+            int relayed;
+            do {
+                relayed = transactionTemplate.execute(status -> relayNextBatch());
+            } while (relayed == batchSize);
+        } catch (Exception e) {
+            failures.increment();
+            log.error("Outbox relay failed, will retry on next run", e);
+        } finally {
+            refreshBacklogMetrics();
+        }
+    }
+
+    private int relayNextBatch() {
+        List<OutboxEvent> batch = outboxRepo.lockNextBatch(batchSize);
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        List<CompletableFuture<?>> sends = new ArrayList<>(batch.size());
+        for (OutboxEvent e : batch) {
+            sends.add(kafkaTemplate.send(e.getTopic(), String.valueOf(e.getAggregateId()), toEvent(e)));
+        }
+        kafkaTemplate.flush();
+
+        // Rows are deleted only once every record is acknowledged; a failure rolls back and retries the batch
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get(sendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to relay outbox batch of " + batch.size(), ex);
+        }
+        outboxRepo.deleteAllInBatch(batch);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent e : batch) {
+            lag.record(Duration.between(e.getCreatedAt(), now));
+        }
+        published.increment(batch.size());
+        log.debug("Relayed {} outbox events", batch.size());
+        return batch.size();
+    }
+
+    private Object toEvent(OutboxEvent e) {
+        Class<?> type = EVENT_TYPES.get(e.getTopic());
+        if (type == null) {
+            throw new RuntimeException("No event type registered for topic " + e.getTopic());
+        }
+        try {
+            return objectMapper.readValue(e.getPayload(), type);
+        } catch (Exception ex) {
+            throw new RuntimeException("Failed to read outbox payload " + e.getId(), ex);
+        }
+    }
+
+    private void refreshBacklogMetrics() {
+        try {
+            pending.set(outboxRepo.count());
+            LocalDateTime oldest = outboxRepo.findOldestCreatedAt();
+            oldestPendingAgeMs.set(oldest == null ? 0 : Duration.between(oldest, LocalDateTime.now()).toMillis());
+        } catch (Exception e) {
+            log.warn("Could not refresh outbox metrics: {}", e.getMessage());
+        }
+    }
+}
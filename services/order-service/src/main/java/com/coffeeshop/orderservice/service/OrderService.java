@@ -0,0 +1,208 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.dto.AddItemRequest;
+import com.coffeeshop.orderservice.dto.ProductDto;
+import com.coffeeshop.orderservice.dto.StatusTransitionRequest;
+import com.coffeeshop.orderservice.dto.StatusTransitionResult;
+import com.coffeeshop.orderservice.dto.StatusTransitionResult.Outcome;
+import com.coffeeshop.orderservice.event.OrderCreatedEvent;
+import com.coffeeshop.orderservice.model.Order;
+import com.coffeeshop.orderservice.model.OrderItem;
+import com.coffeeshop.orderservice.model.OrderStatus;
+import com.coffeeshop.orderservice.repo.OrderItemBatchRepository;
+import com.coffeeshop.orderservice.repo.OrderRepository;
+import com.coffeeshop.orderservice.repo.OrderStatusBatchRepository;
+import com.coffeeshop.orderservice.repo.OrderStatusBatchRepository.StatusRow;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class OrderService {
+
+    private final OrderRepository orderRepo;
+    private final OrderItemBatchRepository itemBatchRepo;
+    private final OrderStatusBatchRepository statusBatchRepo;
+    private final OrderEventService eventService;
+
+    public OrderService(OrderRepository orderRepo, OrderItemBatchRepository itemBatchRepo,
+                        OrderStatusBatchRepository statusBatchRepo, OrderEventService eventService) {
+        this.orderRepo = orderRepo;
+        this.itemBatchRepo = itemBatchRepo;
+        this.statusBatchRepo = statusBatchRepo;
+        this.eventService = eventService;
+    }
+
+    @Transactional
+    public Order create(String customer) {
+        Order o = new Order();
+        o.setCustomerUsername(customer);
+        o.setStatus(OrderStatus.CREATED);
+        o.setTotal(BigDecimal.ZERO);
+        return orderRepo.save(o);
+    }
+
+    // Closes the order for items and queues OrderCreated with its final total and items; the status change
+    // and the outbox row commit together. An add that slips in after the read bumps the version, so the
+    // flush fails instead of publishing a stale total. Checking out again is a no-op, so a retry can't charge twice.
+    // The caller holds the order's stock in catalog-service first (see needsCheckout).
+    @Transactional
+    public Order checkout(Long orderId, String username) {
+        Order order = orderRepo.findWithItemsById(orderId).orElseThrow();
+        if (!isOpenFor(order, username)) {
+            return order;
+        }
+        if (order.getItems().isEmpty()) {
+            throw new RuntimeException("Cannot check out an empty order");
+        }
+        order.setStatus(OrderStatus.PENDING);
+
+        OrderCreatedEvent event = new OrderCreatedEvent();
+        event.orderId = order.getId();
+        event.customerUsername = order.getCustomerUsername();
+        event.total = order.getTotal();
+        event.createdAt = order.getCreatedAt();
+        event.items = order.getItems().stream().map(item -> {
+            OrderCreatedEvent.OrderItemDto dto = new OrderCreatedEvent.OrderItemDto();
+            dto.productId = item.getProductId();
+            dto.productName = item.getProductName();
+            dto.unitPrice = item.getUnitPrice();
+            dto.quantity = item.getQuantity();
+            return dto;
+        }).toList();
+        eventService.publishOrderCreated(event);
+
+        return order;
+    }
+
+    // Checkout's ownership and status checks without changing anything; false when the order is already
+    // checked out, so a retried checkout doesn't touch the stock again
+    @Transactional(readOnly = true)
+    public boolean needsCheckout(Long orderId, String username) {
+        return isOpenFor(orderRepo.findById(orderId).orElseThrow(), username);
+    }
+
+    private static boolean isOpenFor(Order order, String username) {
+        if (!order.getCustomerUsername().equals(username)) {
+            throw new RuntimeException("You can only check out your own orders");
+        }
+        if (order.getStatus() == OrderStatus.CANCELLED) {
+            throw new RuntimeException("Cannot check out a cancelled order");
+        }
+        return order.getStatus() == OrderStatus.CREATED;
+    }
+
+    // Only checked-out orders waiting for payment move to PAID, so replayed or late events can't roll a status back
+    @Transactional
+    public int markPaid(List<Long> orderIds) {
+        if (orderIds.isEmpty()) {
+            return 0;
+        }
+        return orderRepo.transitionAll(orderIds, EnumSet.of(OrderStatus.PENDING), OrderStatus.PAID);
+    }
+
+    @Transactional
+    public Order updateStatus(Long orderId, OrderStatus status) {
+        Order order = orderRepo.findById(orderId).orElseThrow();
+        if (order.getStatus() == status) {
+            return order;
+        }
+        if (!order.getStatus().canTransitionTo(status)) {
+            throw new RuntimeException("Cannot change order status from " + order.getStatus() + " to " + status);
+        }
+        order.setStatus(status);
+        return order;
+    }
+
+    // Applies all transitions with one guarded UPDATE; anything that didn't match is looked up once to explain why
+    @Transactional
+    public List<StatusTransitionResult> transitionStatuses(List<StatusTransitionRequest> requests) {
+        StatusTransitionResult[] results = new StatusTransitionResult[requests.size()];
+        List<StatusTransitionRequest> valid = new ArrayList<>(requests.size());
+        Set<Long> seen = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            StatusTransitionRequest req = requests.get(i);
+            if (req.getOrderId() == null || req.getExpectedStatus() == null || req.getNewStatus() == null
+                    || !req.getExpectedStatus().canTransitionTo(req.getNewStatus())) {
+                results[i] = new StatusTransitionResult(req.getOrderId(), Outcome.INVALID_TRANSITION, null, null);
+            } else if (seen.add(req.getOrderId())) {
+                valid.add(req);
+            }
+        }
+
+        Map<Long, StatusRow> applied = valid.isEmpty() ? Map.of() : statusBatchRepo.applyTransitions(valid);
+        List<Long> missed = valid.stream().map(StatusTransitionRequest::getOrderId)
+                .filter(id -> !applied.containsKey(id)).toList();
+        Map<Long, StatusRow> current = missed.isEmpty() ? Map.of() : statusBatchRepo.findCurrent(missed);
+
+        // Each order id is applied at most once; repeats of it in the same request are reported as conflicts
+        Set<Long> reported = new HashSet<>();
+        for (int i = 0; i < requests.size(); i++) {
+            if (results[i] != null) {
+                continue;
+            }
+            Long id = requests.get(i).getOrderId();
+            StatusRow row = applied.get(id);
+            boolean first = reported.add(id);
+            if (row != null) {
+                results[i] = new StatusTransitionResult(id, first ? Outcome.APPLIED : Outcome.CONFLICT, row.status(), row.version());
+            } else {
+                row = current.get(id);
+                results[i] = row == null
+                        ? new StatusTransitionResult(id, Outcome.NOT_FOUND, null, null)
+                        : new StatusTransitionResult(id, Outcome.CONFLICT, row.status(), row.version());
+            }
+        }
+        return List.of(results);
+    }
+
+    @Transactional
+    public Order cancel(Long orderId, String username, boolean isAdmin) {
+        Order order = orderRepo.findById(orderId).orElseThrow();
+        if (!order.getCustomerUsername().equals(username) && !isAdmin) {
+            throw new RuntimeException("You can only cancel your own orders");
+        }
+        if (!order.getStatus().canTransitionTo(OrderStatus.CANCELLED)) {
+            throw new RuntimeException("Cannot cancel order with status: " + order.getStatus());
+        }
+        order.setStatus(OrderStatus.CANCELLED);
+        return order;
+    }
+
+    // Two statements whatever the number of items: the relative UPDATE of the order's totals and one insert batch
+    @Transactional
+    public void addItems(Long orderId, List<AddItemRequest> requests, Map<Long, ProductDto> products) {
+        List<OrderItem> items = new ArrayList<>(requests.size());
+        BigDecimal addedTotal = BigDecimal.ZERO;
+        for (AddItemRequest req : requests) {
+            ProductDto product = products.get(req.getProductId());
+            if (product == null) {
+                throw new RuntimeException("Product not found: " + req.getProductId());
+            }
+
+            OrderItem item = new OrderItem();
+            item.setProductId(product.id);
+            item.setProductName(product.name);
+            item.setUnitPrice(product.price);
+            item.setQuantity(req.getQuantity());
+            items.add(item);
+
+            addedTotal = addedTotal.add(product.price.multiply(BigDecimal.valueOf(req.getQuantity())));
+        }
+
+        // Update first: it checks the order is still open and holds its row lock until the items are in
+        if (!itemBatchRepo.addToOrder(orderId, addedTotal, items.size())) {
+            Order order = orderRepo.findById(orderId)
+                    .orElseThrow(() -> new RuntimeException("Order not found: " + orderId));
+            throw new RuntimeException("Cannot add items to order with status: " + order.getStatus());
+        }
+        itemBatchRepo.insertAll(orderId, items);
+    }
+}
@@ -0,0 +1,55 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.dto.ProductDto;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+
+// Local copy of catalog products, invalidated by catalog.products.changed events
+@Service
+public class ProductCache {
+
+    private final Cache<Long, ProductDto> cache;
+    private final Counter invalidations;
+
+    public ProductCache(MeterRegistry meterRegistry,
+                        @Value("${catalog.cache.ttl:PT10M}") Duration ttl,
+                        @Value("${catalog.cache.max-size:10000}") long maxSize) {
+        this.cache = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .maximumSize(maxSize)
+                .recordStats()
+                .build();
+        // Exposes cache.gets{result=hit|miss}, cache.evictions, cache.size under cache=catalog.products
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "catalog.products");
+        this.invalidations = Counter.builder("catalog.products.cache.invalidations")
+                .description("Product cache entries dropped because of catalog.products.changed events")
+                .register(meterRegistry);
+    }
+
+    public Map<Long, ProductDto> getAllPresent(Collection<Long> productIds) {
+        return cache.getAllPresent(productIds);
+    }
+
+    public void putAll(Map<Long, ProductDto> products) {
+        cache.putAll(products);
+    }
+
+    public void invalidate(Long productId) {
+        cache.invalidate(productId);
+        invalidations.increment();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+        invalidations.increment();
+    }
+}
@@ -0,0 +1,8 @@
+-- Events written in the same transaction as the order, relayed to Kafka in batches
+CREATE TABLE order_outbox (
+  id BIGSERIAL PRIMARY KEY,
+  aggregate_id BIGINT NOT NULL,
+  topic VARCHAR(100) NOT NULL,
+  payload TEXT NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
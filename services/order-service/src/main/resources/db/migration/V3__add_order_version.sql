@@ -0,0 +1,2 @@
+-- Optimistic locking for status changes
+ALTER TABLE orders ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,7 @@
+-- Keyset pagination over (created_at, id), newest first, optionally narrowed by customer or status
+CREATE INDEX idx_orders_created_at_id ON orders (created_at DESC, id DESC);
+CREATE INDEX idx_orders_customer_created_at_id ON orders (customer_username, created_at DESC, id DESC);
+CREATE INDEX idx_orders_status_created_at_id ON orders (status, created_at DESC, id DESC);
+
+-- Item lookups and counts per order (Postgres doesn't index foreign keys on its own)
+CREATE INDEX idx_order_items_order_id ON order_items (order_id);
@@ -0,0 +1,4 @@
+-- Maintained together with total on every add, so list views never have to count order_items
+ALTER TABLE orders ADD COLUMN item_count INT NOT NULL DEFAULT 0;
+
+UPDATE orders o SET item_count = (SELECT COUNT(*) FROM order_items i WHERE i.order_id = o.id);
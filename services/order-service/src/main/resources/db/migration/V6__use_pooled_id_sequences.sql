@@ -0,0 +1,9 @@
+-- Entities now take ids from these sequences in blocks of 50 (allocationSize), which lets Hibernate batch inserts.
+-- BIGSERIAL already created them on Postgres; IF NOT EXISTS covers databases that back BIGSERIAL differently (H2 in tests).
+CREATE SEQUENCE IF NOT EXISTS orders_id_seq;
+CREATE SEQUENCE IF NOT EXISTS order_items_id_seq;
+CREATE SEQUENCE IF NOT EXISTS order_outbox_id_seq;
+
+ALTER SEQUENCE orders_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_items_id_seq INCREMENT BY 50;
+ALTER SEQUENCE order_outbox_id_seq INCREMENT BY 50;
@@ -0,0 +1,109 @@
+package com.coffeeshop.orderservice.config;
+
+import com.coffeeshop.orderservice.event.OrderCreatedEvent;
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.apache.kafka.common.serialization.StringSerializer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.kafka.core.DefaultKafkaProducerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+import org.springframework.kafka.test.EmbeddedKafkaKraftBroker;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Events/sec of the old bare producer config vs {@link KafkaProducerProfile} against an embedded broker.
+ * Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=ProducerThroughputBenchmark}.
+ */
+class ProducerThroughputBenchmark {
+
+    private static final String TOPIC = "bench.orders.created";
+    private static final int EVENTS = 200_000;
+    private static final int WARMUP_EVENTS = 20_000;
+
+    private static EmbeddedKafkaKraftBroker broker;
+
+    @BeforeAll
+    static void startBroker() {
+        broker = new EmbeddedKafkaKraftBroker(1, 3, TOPIC);
+        broker.afterPropertiesSet();
+    }
+
+    @AfterAll
+    static void stopBroker() {
+        broker.destroy();
+    }
+
+    @Test
+    void compareProducerProfiles() throws Exception {
+        Map<String, Object> baseline = new HashMap<>();
+
+        Map<String, Object> profile = new KafkaProducerProfile("all", true, 10, 131072, "lz4", 5).asProducerConfig();
+
+        double before = run("baseline", baseline);
+        double after = run("profile", profile);
+        System.out.printf("%nProducer throughput (%d events): baseline %.0f events/s, profile %.0f events/s (x%.2f)%n",
+                EVENTS, before, after, after / before);
+    }
+
+    private double run(String name, Map<String, Object> overrides) throws Exception {
+        Map<String, Object> props = new HashMap<>(overrides);
+        props.put(ProducerConfig.BOOTSTRAP_SERVERS_CONFIG, broker.getBrokersAsString());
+        props.put(ProducerConfig.KEY_SERIALIZER_CLASS_CONFIG, StringSerializer.class);
+        props.put(ProducerConfig.VALUE_SERIALIZER_CLASS_CONFIG, JsonSerializer.class);
+        DefaultKafkaProducerFactory<String, Object> factory = new DefaultKafkaProducerFactory<>(props);
+        try {
+            KafkaTemplate<String, Object> template = new KafkaTemplate<>(factory);
+            send(template, WARMUP_EVENTS);
+
+            long start = System.nanoTime();
+            send(template, EVENTS);
+            double seconds = (System.nanoTime() - start) / 1e9;
+            double rate = EVENTS / seconds;
+            System.out.printf("%-8s %,10.0f events/s%n", name, rate);
+            return rate;
+        } finally {
+            factory.destroy();
+        }
+    }
+
+    private void send(KafkaTemplate<String, Object> template, int count) throws Exception {
+        List<CompletableFuture<?>> sends = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            OrderCreatedEvent event = sampleEvent(i);
+            sends.add(template.send(TOPIC, String.valueOf(event.orderId), event));
+        }
+        template.flush();
+        CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).get();
+        assertEquals(count, sends.stream().filter(f -> !f.isCompletedExceptionally()).count());
+    }
+
+    private static OrderCreatedEvent sampleEvent(long orderId) {
+        OrderCreatedEvent event = new OrderCreatedEvent();
+        event.orderId = orderId;
+        event.customerUsername = "customer" + (orderId % 500);
+        event.total = new BigDecimal("12.75");
+        event.createdAt = LocalDateTime.now();
+        event.items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderCreatedEvent.OrderItemDto item = new OrderCreatedEvent.OrderItemDto();
+            item.productId = (long) i + 1;
+            item.productName = "Flat White " + i;
+            item.unitPrice = new BigDecimal("4.25");
+            item.quantity = 1;
+            event.items.add(item);
+        }
+        return event;
+    }
+}
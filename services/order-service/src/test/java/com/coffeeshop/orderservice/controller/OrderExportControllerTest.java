@@ -0,0 +1,55 @@
+package com.coffeeshop.orderservice.controller;
+
+import com.coffeeshop.orderservice.repo.OrderItemRepository;
+import com.coffeeshop.orderservice.repo.OrderQueryRepository;
+import com.coffeeshop.orderservice.repo.OrderRepository;
+import com.coffeeshop.orderservice.service.CatalogClient;
+import com.coffeeshop.orderservice.service.OrderExportService;
+import com.coffeeshop.orderservice.service.OrderService;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class OrderExportControllerTest {
+
+    private final OrderExportService exportService = mock(OrderExportService.class);
+    private final MockMvc mockMvc = MockMvcBuilders.standaloneSetup(new OrderController(mock(OrderRepository.class),
+                    mock(OrderItemRepository.class), mock(OrderQueryRepository.class), mock(CatalogClient.class),
+                    mock(OrderService.class), exportService, 1234L))
+            .build();
+
+    @Test
+    void exportStreamsNdjsonUnderItsOwnTimeout() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2026, 3, 1, 0, 0);
+        doAnswer(inv -> {
+            inv.getArgument(2, OutputStream.class).write("{\"id\":1}\n".getBytes(StandardCharsets.UTF_8));
+            return null;
+        }).when(exportService).exportNdjson(eq(from), eq(null), any());
+
+        MvcResult result = mockMvc.perform(get("/api/orders/export").param("from", "2026-03-01T00:00:00"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(1234L);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n"));
+    }
+}
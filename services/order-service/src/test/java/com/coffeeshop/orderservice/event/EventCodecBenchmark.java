@@ -0,0 +1,110 @@
+package com.coffeeshop.orderservice.event;
+
+import org.apache.kafka.common.header.internals.RecordHeaders;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.kafka.support.serializer.JsonDeserializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialize/deserialize cost of the JSON path (JsonSerializer with type headers) vs {@link EventBinaryCodec}.
+ * Run {@link #main} with the test classpath (e.g. from the IDE); bytes per event are printed before the JMH run.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class EventCodecBenchmark {
+
+    @Param({"orders.created", "payments.processed"})
+    public String topic;
+
+    private Object event;
+    private JsonSerializer<Object> jsonSerializer;
+    private JsonDeserializer<Object> jsonDeserializer;
+    private RecordHeaders headers;
+    private byte[] jsonBytes;
+    private byte[] binaryBytes;
+
+    @Setup
+    public void setup() {
+        event = "orders.created".equals(topic) ? sampleOrderCreated() : samplePaymentProcessed();
+        jsonSerializer = new JsonSerializer<>();
+        jsonDeserializer = new JsonDeserializer<>();
+        jsonDeserializer.configure(Map.of(JsonDeserializer.TRUSTED_PACKAGES, "com.coffeeshop.orderservice.event"), false);
+
+        headers = new RecordHeaders();
+        jsonBytes = jsonSerializer.serialize(topic, headers, event);
+        binaryBytes = EventBinaryCodec.encode(event);
+    }
+
+    @Benchmark
+    public byte[] jsonSerialize() {
+        return jsonSerializer.serialize(topic, new RecordHeaders(), event);
+    }
+
+    @Benchmark
+    public byte[] binarySerialize() {
+        return EventBinaryCodec.encode(event);
+    }
+
+    @Benchmark
+    public Object jsonDeserialize() {
+        // JsonDeserializer strips the type headers it reads, so every record gets its own copy, as on the consumer
+        return jsonDeserializer.deserialize(topic, new RecordHeaders(headers.toArray()), jsonBytes);
+    }
+
+    @Benchmark
+    public Object binaryDeserialize() {
+        return EventBinaryCodec.decode(binaryBytes);
+    }
+
+    static OrderCreatedEvent sampleOrderCreated() {
+        OrderCreatedEvent e = new OrderCreatedEvent();
+        e.orderId = 184_467L;
+        e.customerUsername = "customer42";
+        e.total = new BigDecimal("14.25");
+        e.createdAt = LocalDateTime.now();
+        e.items = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            OrderCreatedEvent.OrderItemDto item = new OrderCreatedEvent.OrderItemDto();
+            item.productId = 10L + i;
+            item.productName = "Caramel Macchiato " + i;
+            item.unitPrice = new BigDecimal("4.75");
+            item.quantity = 1;
+            e.items.add(item);
+        }
+        return e;
+    }
+
+    static PaymentProcessedEvent samplePaymentProcessed() {
+        PaymentProcessedEvent e = new PaymentProcessedEvent();
+        e.orderId = 184_467L;
+        e.customerUsername = "customer42";
+        e.amount = new BigDecimal("14.25");
+        e.status = "SUCCESS";
+        e.processedAt = LocalDateTime.now();
+        return e;
+    }
+
+    public static void main(String[] args) throws Exception {
+        for (String t : new String[]{"orders.created", "payments.processed"}) {
+            EventCodecBenchmark b = new EventCodecBenchmark();
+            b.topic = t;
+            b.setup();
+            System.out.printf("%-20s json %4d bytes (+%d header bytes), binary %4d bytes%n",
+                    t, b.jsonBytes.length, b.headers.toArray()[0].value().length + b.headers.toArray()[0].key().length(),
+                    b.binaryBytes.length);
+        }
+        new Runner(new OptionsBuilder().include(EventCodecBenchmark.class.getSimpleName()).build()).run();
+    }
+}
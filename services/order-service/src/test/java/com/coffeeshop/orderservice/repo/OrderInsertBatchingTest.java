@@ -0,0 +1,56 @@
+package com.coffeeshop.orderservice.repo;
+
+import com.coffeeshop.orderservice.model.Order;
+import com.coffeeshop.orderservice.model.OrderItem;
+import com.coffeeshop.orderservice.support.StatementCounter;
+import com.coffeeshop.orderservice.support.StatementCounter.Execution;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order_batching;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(StatementCounter.class)
+class OrderInsertBatchingTest {
+
+    @Autowired
+    private OrderRepository orderRepo;
+
+    @Test
+    void orderWithTwentyItemsIsInsertedInBatches() {
+        Order order = new Order();
+        order.setCustomerUsername("alice");
+        for (int i = 0; i < 20; i++) {
+            OrderItem item = new OrderItem();
+            item.setOrder(order);
+            item.setProductId((long) i);
+            item.setProductName("Product " + i);
+            item.setUnitPrice(new BigDecimal("2.50"));
+            item.setQuantity(1);
+            order.getItems().add(item);
+        }
+
+        StatementCounter.reset();
+        orderRepo.saveAndFlush(order);
+        List<Execution> executions = StatementCounter.executions();
+
+        List<Execution> orderInserts = executions.stream().filter(e -> e.isInsertInto("orders")).toList();
+        List<Execution> itemInserts = executions.stream().filter(e -> e.isInsertInto("order_items")).toList();
+        assertThat(orderInserts).hasSize(1);
+        assertThat(itemInserts).hasSize(1);
+        assertThat(itemInserts.get(0).rows()).isEqualTo(20);
+        // the rest are pooled sequence calls, not one per row
+        assertThat(executions).hasSizeLessThanOrEqualTo(6);
+    }
+}
@@ -0,0 +1,117 @@
+package com.coffeeshop.orderservice.repo;
+
+import com.coffeeshop.orderservice.dto.OrderPage;
+import com.coffeeshop.orderservice.dto.OrderSummary;
+import com.coffeeshop.orderservice.model.OrderStatus;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order_query;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderQueryRepository.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderQueryRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 9, 0);
+
+    @Autowired
+    private OrderQueryRepository queryRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+        // 25 orders for alice, every fifth paid, with pairs sharing a timestamp so ids break the ties
+        for (int i = 1; i <= 25; i++) {
+            insert(i, "alice", i % 5 == 0 ? OrderStatus.PAID : OrderStatus.CREATED, START.plusHours(i / 2));
+        }
+        insert(26, "bob", OrderStatus.CREATED, START);
+    }
+
+    @Test
+    void pagesWalkEveryOrderNewestFirstWithoutGapsOrRepeats() {
+        List<OrderSummary> seen = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            OrderPage page = queryRepository.findPage("alice", null, null, null, cursor, 7);
+            seen.addAll(page.orders());
+            cursor = page.nextCursor();
+            pages++;
+        } while (cursor != null);
+
+        assertThat(pages).isEqualTo(4);
+        assertThat(seen).extracting(OrderSummary::id).hasSize(25).doesNotHaveDuplicates();
+        assertThat(seen).isSortedAccordingTo(Comparator.comparing(OrderSummary::createdAt)
+                .thenComparing(OrderSummary::id).reversed());
+    }
+
+    @Test
+    void aPageEndingOnTheLastOrderHasNoNextCursor() {
+        OrderPage first = queryRepository.findPage("alice", null, null, null, null, 20);
+        OrderPage last = queryRepository.findPage("alice", null, null, null, first.nextCursor(), 5);
+
+        assertThat(last.orders()).extracting(OrderSummary::id).containsExactly(5L, 4L, 3L, 2L, 1L);
+        assertThat(last.nextCursor()).isNull();
+    }
+
+    @Test
+    void pageSizeIsClampedToOneAndTheMaximum() {
+        assertThat(queryRepository.findPage("alice", null, null, null, null, 0).orders()).hasSize(1);
+
+        for (int i = 100; i < 100 + OrderQueryRepository.MAX_PAGE_SIZE; i++) {
+            insert(i, "carol", OrderStatus.CREATED, START);
+        }
+        OrderPage page = queryRepository.findPage("carol", null, null, null, null, 10_000);
+        assertThat(page.orders()).hasSize(OrderQueryRepository.MAX_PAGE_SIZE);
+        assertThat(page.nextCursor()).isNull();
+    }
+
+    @Test
+    void statusAndDateRangeNarrowThePage() {
+        OrderPage paid = queryRepository.findPage("alice", OrderStatus.PAID, null, null, null, 50);
+        assertThat(paid.orders()).extracting(OrderSummary::id).containsExactly(25L, 20L, 15L, 10L, 5L);
+        assertThat(paid.nextCursor()).isNull();
+
+        // Orders 4..7 fall in [START+2h, START+4h)
+        OrderPage range = queryRepository.findPage("alice", null, START.plusHours(2), START.plusHours(4), null, 50);
+        assertThat(range.orders()).extracting(OrderSummary::id).containsExactly(7L, 6L, 5L, 4L);
+    }
+
+    @Test
+    void aMalformedCursorIsABadRequest() {
+        assertThatThrownBy(() -> queryRepository.findPage("alice", null, null, null, "not-a-cursor", 10))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private void insert(long id, String customer, OrderStatus status, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO orders (id, customer_username, status, total, created_at) VALUES (?, ?, ?, 5.00, ?)",
+                id, customer, status.name(), Timestamp.valueOf(createdAt));
+    }
+}
@@ -0,0 +1,85 @@
+package com.coffeeshop.orderservice.repo;
+
+import com.coffeeshop.orderservice.dto.StatusTransitionRequest;
+import com.coffeeshop.orderservice.model.OrderStatus;
+import com.coffeeshop.orderservice.repo.OrderStatusBatchRepository.StatusRow;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// unnest(?::bigint[]) ... RETURNING has no H2 equivalent, so this runs only against a real, disposable Postgres:
+// ORDER_TEST_DB_URL=jdbc:postgresql://localhost:5432/orders_test?user=...&password=...
+@EnabledIfEnvironmentVariable(named = "ORDER_TEST_DB_URL", matches = ".+")
+class OrderStatusBatchRepositoryTest {
+
+    private static JdbcTemplate jdbcTemplate;
+    private static OrderStatusBatchRepository statusBatchRepo;
+
+    @BeforeAll
+    static void migrate() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(System.getenv("ORDER_TEST_DB_URL"));
+        Flyway.configure().dataSource(dataSource).load().migrate();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        statusBatchRepo = new OrderStatusBatchRepository(jdbcTemplate);
+    }
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+    }
+
+    @Test
+    void appliesMatchingTransitionsAndBumpsTheirVersion() {
+        insert(1L, OrderStatus.CREATED, 0);
+        insert(2L, OrderStatus.PAID, 5);
+
+        Map<Long, StatusRow> applied = statusBatchRepo.applyTransitions(List.of(
+                request(1L, OrderStatus.CREATED, OrderStatus.PAID, null),
+                request(2L, OrderStatus.PAID, OrderStatus.PROCESSING, 5L)));
+
+        assertThat(applied).containsOnly(
+                Map.entry(1L, new StatusRow(1L, OrderStatus.PAID, 1)),
+                Map.entry(2L, new StatusRow(2L, OrderStatus.PROCESSING, 6)));
+        assertThat(jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = 2", Long.class)).isEqualTo(6L);
+    }
+
+    @Test
+    void leavesRowsWithAnotherStatusOrVersionAlone() {
+        insert(3L, OrderStatus.CANCELLED, 2);
+        insert(4L, OrderStatus.CREATED, 2);
+
+        Map<Long, StatusRow> applied = statusBatchRepo.applyTransitions(List.of(
+                request(3L, OrderStatus.CREATED, OrderStatus.PAID, null),
+                request(4L, OrderStatus.CREATED, OrderStatus.PAID, 1L),
+                request(99L, OrderStatus.CREATED, OrderStatus.PAID, null)));
+
+        assertThat(applied).isEmpty();
+        assertThat(statusBatchRepo.findCurrent(List.of(3L, 4L, 99L))).containsOnly(
+                Map.entry(3L, new StatusRow(3L, OrderStatus.CANCELLED, 2)),
+                Map.entry(4L, new StatusRow(4L, OrderStatus.CREATED, 2)));
+    }
+
+    private static void insert(long id, OrderStatus status, long version) {
+        jdbcTemplate.update("INSERT INTO orders (id, customer_username, status, total, version) VALUES (?, 'alice', ?, 5.00, ?)",
+                id, status.name(), version);
+    }
+
+    private static StatusTransitionRequest request(Long orderId, OrderStatus expected, OrderStatus next, Long version) {
+        StatusTransitionRequest req = new StatusTransitionRequest();
+        req.setOrderId(orderId);
+        req.setExpectedStatus(expected);
+        req.setNewStatus(next);
+        req.setExpectedVersion(version);
+        return req;
+    }
+}
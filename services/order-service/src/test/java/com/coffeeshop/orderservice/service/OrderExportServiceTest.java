@@ -0,0 +1,106 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.repo.OrderExportRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:order_export;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "orders.export.fetch-size=2"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({OrderExportService.class, OrderExportRepository.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderExportServiceTest {
+
+    private static final LocalDateTime NOON = LocalDateTime.of(2026, 3, 1, 12, 0);
+
+    @Autowired
+    private OrderExportService exportService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+    }
+
+    @Test
+    void ordersComeInCreationOrderWithTheirItemsInlined() throws Exception {
+        // Ids deliberately out of creation order, and two orders created at the same instant
+        insertOrder(30, "alice", NOON.minusHours(1));
+        insertOrder(10, "bob", NOON);
+        insertOrder(20, "carol", NOON);
+        insertItem(102, 10, "Latte");
+        insertItem(101, 10, "Mocha");
+        insertItem(301, 30, "Espresso");
+
+        List<JsonNode> lines = export(null, null);
+
+        assertThat(lines).extracting(l -> l.get("id").asLong()).containsExactly(30L, 10L, 20L);
+        assertThat(lines.get(1).get("customerUsername").asText()).isEqualTo("bob");
+        assertThat(lines.get(1).get("items")).extracting(i -> i.get("productName").asText())
+                .containsExactly("Mocha", "Latte");
+        assertThat(lines.get(2).get("items")).isEmpty();
+    }
+
+    @Test
+    void fromIsInclusiveAndToIsExclusive() throws Exception {
+        insertOrder(1, "alice", NOON.minusMinutes(1));
+        insertOrder(2, "alice", NOON);
+        insertOrder(3, "alice", NOON.plusHours(1));
+
+        assertThat(export(NOON, NOON.plusHours(1))).extracting(l -> l.get("id").asLong()).containsExactly(2L);
+        assertThat(export(null, null)).hasSize(3);
+    }
+
+    private List<JsonNode> export(LocalDateTime from, LocalDateTime to) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exportService.exportNdjson(from, to, out);
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            if (!line.isEmpty()) {
+                lines.add(objectMapper.readTree(line));
+            }
+        }
+        return lines;
+    }
+
+    private void insertOrder(long id, String customer, LocalDateTime createdAt) {
+        jdbcTemplate.update("INSERT INTO orders (id, customer_username, status, total, created_at) VALUES (?, ?, 'CREATED', 5.00, ?)",
+                id, customer, Timestamp.valueOf(createdAt));
+    }
+
+    private void insertItem(long id, long orderId, String productName) {
+        jdbcTemplate.update("INSERT INTO order_items (id, order_id, product_id, product_name, unit_price, quantity) "
+                + "VALUES (?, ?, 1, ?, 2.50, 1)", id, orderId, productName);
+    }
+}
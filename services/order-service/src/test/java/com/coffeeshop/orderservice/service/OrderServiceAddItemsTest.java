@@ -0,0 +1,172 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.dto.AddItemRequest;
+import com.coffeeshop.orderservice.dto.ProductDto;
+import com.coffeeshop.orderservice.event.OrderCreatedEvent;
+import com.coffeeshop.orderservice.model.Order;
+import com.coffeeshop.orderservice.model.OrderStatus;
+import com.coffeeshop.orderservice.repo.OrderItemBatchRepository;
+import com.coffeeshop.orderservice.repo.OrderRepository;
+import com.coffeeshop.orderservice.repo.OrderStatusBatchRepository;
+import com.coffeeshop.orderservice.support.StatementCounter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:orders;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=10000",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderService.class, OrderItemBatchRepository.class, OrderStatusBatchRepository.class,
+        StatementCounter.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceAddItemsTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private OrderRepository orderRepo;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @MockitoBean
+    private OrderEventService eventService;
+
+    private final ProductDto latte = product(1L, "Latte", "4.50");
+    private final ProductDto muffin = product(2L, "Muffin", "3.25");
+
+    @BeforeEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM order_items");
+        jdbcTemplate.update("DELETE FROM orders");
+    }
+
+    @Test
+    void parallelAddsToOneOrderLoseNoUpdates() throws Exception {
+        Long orderId = newOrder();
+        int threads = 8;
+        int addsPerThread = 25;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < addsPerThread; i++) {
+                    orderService.addItems(orderId, List.of(item(1L, 2), item(2L, 1)), Map.of(1L, latte, 2L, muffin));
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        pool.shutdown();
+
+        int adds = threads * addsPerThread;
+        Order order = orderRepo.findById(orderId).orElseThrow();
+        // each add: 2 x 4.50 + 1 x 3.25 = 12.25
+        assertThat(order.getTotal()).isEqualByComparingTo(new BigDecimal("12.25").multiply(BigDecimal.valueOf(adds)));
+        assertThat(order.getItemCount()).isEqualTo(adds * 2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM order_items WHERE order_id = ?", Integer.class, orderId))
+                .isEqualTo(adds * 2);
+    }
+
+    @Test
+    void addItemsRunsTwoStatementsRegardlessOfItemCount() {
+        Long orderId = newOrder();
+
+        StatementCounter.reset();
+        orderService.addItems(orderId, List.of(item(1L, 1)), Map.of(1L, latte));
+        int single = StatementCounter.executions().size();
+
+        List<AddItemRequest> twenty = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            twenty.add(item(i % 2 == 0 ? 1L : 2L, 1));
+        }
+        StatementCounter.reset();
+        orderService.addItems(orderId, twenty, Map.of(1L, latte, 2L, muffin));
+        int many = StatementCounter.executions().size();
+
+        // one conditional UPDATE of orders + one JDBC batch of inserts
+        assertThat(single).isEqualTo(2);
+        assertThat(many).isEqualTo(2);
+    }
+
+    @Test
+    void checkoutPublishesTheFinalTotalAndClosesTheOrderForItems() {
+        Long orderId = newOrder();
+        orderService.addItems(orderId, List.of(item(1L, 2), item(2L, 1)), Map.of(1L, latte, 2L, muffin));
+
+        Order checkedOut = orderService.checkout(orderId, "alice");
+        orderService.checkout(orderId, "alice");
+
+        assertThat(checkedOut.getStatus()).isEqualTo(OrderStatus.PENDING);
+        ArgumentCaptor<OrderCreatedEvent> event = ArgumentCaptor.forClass(OrderCreatedEvent.class);
+        verify(eventService, times(1)).publishOrderCreated(event.capture());
+        assertThat(event.getValue().total).isEqualByComparingTo("12.25");
+        assertThat(event.getValue().items).extracting(i -> i.productId).containsExactlyInAnyOrder(1L, 2L);
+
+        assertThatThrownBy(() -> orderService.addItems(orderId, List.of(item(1L, 1)), Map.of(1L, latte)))
+                .hasMessageContaining("PENDING");
+        assertThat(orderRepo.findById(orderId).orElseThrow().getTotal()).isEqualByComparingTo("12.25");
+    }
+
+    @Test
+    void anEmptyOrderCannotBeCheckedOut() {
+        Long orderId = newOrder();
+
+        assertThatThrownBy(() -> orderService.checkout(orderId, "alice")).hasMessageContaining("empty");
+        verify(eventService, never()).publishOrderCreated(any());
+    }
+
+    private Long newOrder() {
+        Order order = new Order();
+        order.setCustomerUsername("alice");
+        return orderRepo.save(order).getId();
+    }
+
+    private static AddItemRequest item(Long productId, int quantity) {
+        AddItemRequest req = new AddItemRequest();
+        req.setProductId(productId);
+        req.setQuantity(quantity);
+        return req;
+    }
+
+    private static ProductDto product(Long id, String name, String price) {
+        ProductDto p = new ProductDto();
+        p.id = id;
+        p.name = name;
+        p.price = new BigDecimal(price);
+        return p;
+    }
+}
@@ -0,0 +1,104 @@
+package com.coffeeshop.orderservice.service;
+
+import com.coffeeshop.orderservice.dto.StatusTransitionRequest;
+import com.coffeeshop.orderservice.dto.StatusTransitionResult;
+import com.coffeeshop.orderservice.dto.StatusTransitionResult.Outcome;
+import com.coffeeshop.orderservice.model.OrderStatus;
+import com.coffeeshop.orderservice.repo.OrderItemBatchRepository;
+import com.coffeeshop.orderservice.repo.OrderRepository;
+import com.coffeeshop.orderservice.repo.OrderStatusBatchRepository;
+import com.coffeeshop.orderservice.repo.OrderStatusBatchRepository.StatusRow;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+// The outcome bookkeeping around the one-statement update; the SQL itself is covered by
+// OrderStatusBatchRepositoryTest, which needs a real Postgres
+class OrderServiceTransitionTest {
+
+    private final OrderStatusBatchRepository statusBatchRepo = mock(OrderStatusBatchRepository.class);
+    private final OrderService orderService = new OrderService(mock(OrderRepository.class),
+            mock(OrderItemBatchRepository.class), statusBatchRepo, mock(OrderEventService.class));
+
+    @Test
+    void eachRequestGetsItsOwnOutcome() {
+        when(statusBatchRepo.applyTransitions(anyList()))
+                .thenReturn(Map.of(1L, new StatusRow(1L, OrderStatus.PAID, 4)));
+        when(statusBatchRepo.findCurrent(List.of(2L, 3L)))
+                .thenReturn(Map.of(2L, new StatusRow(2L, OrderStatus.CANCELLED, 7)));
+
+        List<StatusTransitionResult> results = orderService.transitionStatuses(List.of(
+                request(1L, OrderStatus.CREATED, OrderStatus.PAID, 3L),
+                request(2L, OrderStatus.CREATED, OrderStatus.PAID, null),
+                request(3L, OrderStatus.PAID, OrderStatus.COMPLETED, null),
+                request(4L, OrderStatus.COMPLETED, OrderStatus.CREATED, null)));
+
+        assertThat(results).extracting(StatusTransitionResult::getOrderId).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(results).extracting(StatusTransitionResult::getOutcome).containsExactly(
+                Outcome.APPLIED, Outcome.CONFLICT, Outcome.NOT_FOUND, Outcome.INVALID_TRANSITION);
+        // Applied and conflicting results carry the state the order is in now
+        assertThat(results.get(0).getStatus()).isEqualTo(OrderStatus.PAID);
+        assertThat(results.get(0).getVersion()).isEqualTo(4L);
+        assertThat(results.get(1).getStatus()).isEqualTo(OrderStatus.CANCELLED);
+        assertThat(results.get(1).getVersion()).isEqualTo(7L);
+        assertThat(results.get(2).getVersion()).isNull();
+
+        // The invalid transition never reaches the database
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StatusTransitionRequest>> sent = ArgumentCaptor.forClass(List.class);
+        verify(statusBatchRepo).applyTransitions(sent.capture());
+        assertThat(sent.getValue()).extracting(StatusTransitionRequest::getOrderId).containsExactly(1L, 2L, 3L);
+    }
+
+    @Test
+    void aRepeatedOrderIdIsAppliedOnceAndTheRepeatsConflict() {
+        when(statusBatchRepo.applyTransitions(anyList()))
+                .thenReturn(Map.of(5L, new StatusRow(5L, OrderStatus.PAID, 1)));
+
+        List<StatusTransitionResult> results = orderService.transitionStatuses(List.of(
+                request(5L, OrderStatus.CREATED, OrderStatus.PAID, null),
+                request(5L, OrderStatus.CREATED, OrderStatus.CANCELLED, null),
+                request(5L, OrderStatus.CREATED, OrderStatus.PAID, null)));
+
+        assertThat(results).extracting(StatusTransitionResult::getOutcome)
+                .containsExactly(Outcome.APPLIED, Outcome.CONFLICT, Outcome.CONFLICT);
+        assertThat(results).extracting(StatusTransitionResult::getStatus).containsOnly(OrderStatus.PAID);
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<StatusTransitionRequest>> sent = ArgumentCaptor.forClass(List.class);
+        verify(statusBatchRepo).applyTransitions(sent.capture());
+        assertThat(sent.getValue()).singleElement()
+                .extracting(StatusTransitionRequest::getNewStatus).isEqualTo(OrderStatus.PAID);
+        verify(statusBatchRepo, never()).findCurrent(any());
+    }
+
+    @Test
+    void aBatchOfInvalidRequestsDoesNotTouchTheDatabase() {
+        List<StatusTransitionResult> results = orderService.transitionStatuses(List.of(
+                request(null, OrderStatus.CREATED, OrderStatus.PAID, null),
+                request(6L, OrderStatus.CREATED, null, null),
+                request(7L, OrderStatus.CANCELLED, OrderStatus.PAID, null)));
+
+        assertThat(results).extracting(StatusTransitionResult::getOutcome).containsOnly(Outcome.INVALID_TRANSITION);
+        verify(statusBatchRepo, never()).applyTransitions(any());
+        verify(statusBatchRepo, never()).findCurrent(any());
+    }
+
+    private static StatusTransitionRequest request(Long orderId, OrderStatus expected, OrderStatus next, Long version) {
+        StatusTransitionRequest req = new StatusTransitionRequest();
+        req.setOrderId(orderId);
+        req.setExpectedStatus(expected);
+        req.setNewStatus(next);
+        req.setExpectedVersion(version);
+        return req;
+    }
+}
@@ -0,0 +1,98 @@
+package com.coffeeshop.orderservice.support;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+// Records every statement execution (one entry per JDBC batch, with its row count) on connections from the DataSource
+@TestConfiguration
+public class StatementCounter {
+
+    public record Execution(String sql, int rows) {
+        public boolean isInsertInto(String table) {
+            return sql.toLowerCase(Locale.ROOT).startsWith("insert into " + table + " ");
+        }
+    }
+
+    private static final List<Execution> EXECUTIONS = Collections.synchronizedList(new ArrayList<>());
+
+    public static void reset() {
+        EXECUTIONS.clear();
+    }
+
+    public static List<Execution> executions() {
+        synchronized (EXECUTIONS) {
+            return List.copyOf(EXECUTIONS);
+        }
+    }
+
+    @Bean
+    static BeanPostProcessor countingDataSource() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                return bean instanceof DataSource ds ? wrapDataSource(ds) : bean;
+            }
+        };
+    }
+
+    private static DataSource wrapDataSource(DataSource target) {
+        return (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(), new Class<?>[]{DataSource.class},
+                (p, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    return result instanceof Connection c ? wrapConnection(c) : result;
+                });
+    }
+
+    private static Connection wrapConnection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (p, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    if (result instanceof Statement s) {
+                        String sql = result instanceof PreparedStatement ? (String) args[0] : null;
+                        @SuppressWarnings("unchecked")
+                        Class<Statement> type = (Class<Statement>) method.getReturnType();
+                        return wrapStatement(type, s, sql);
+                    }
+                    return result;
+                });
+    }
+
+    private static Statement wrapStatement(Class<Statement> type, Statement target, String preparedSql) {
+        int[] pending = {0};
+        return (Statement) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                (p, method, args) -> {
+                    Object result = invoke(target, method, args);
+                    String name = method.getName();
+                    String sql = preparedSql != null ? preparedSql : args != null && args.length > 0 ? String.valueOf(args[0]) : "";
+                    if (name.equals("addBatch")) {
+                        pending[0]++;
+                    } else if (name.equals("executeBatch") || name.equals("executeLargeBatch")) {
+                        EXECUTIONS.add(new Execution(sql, pending[0]));
+                        pending[0] = 0;
+                    } else if (name.startsWith("execute")) {
+                        EXECUTIONS.add(new Execution(sql, 1));
+                    }
+                    return result;
+                });
+    }
+
+    private static Object invoke(Object target, java.lang.reflect.Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
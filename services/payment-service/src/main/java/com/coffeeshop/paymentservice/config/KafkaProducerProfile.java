@@ -0,0 +1,46 @@
+package com.coffeeshop.paymentservice.config;
+
+import org.apache.kafka.clients.producer.ProducerConfig;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// Throughput-oriented producer settings, shared by every service that publishes events (coffeeshop.kafka.producer.*)
+@Component
+public class KafkaProducerProfile {
+
+    private final String acks;
+    private final boolean idempotence;
+    private final int lingerMs;
+    private final int batchSize;
+    private final String compressionType;
+    private final int maxInFlightRequests;
+
+    public KafkaProducerProfile(@Value("${coffeeshop.kafka.producer.acks:all}") String acks,
+                                @Value("${coffeeshop.kafka.producer.idempotence:true}") boolean idempotence,
+                                @Value("${coffeeshop.kafka.producer.linger-ms:10}") int lingerMs,
+                                @Value("${coffeeshop.kafka.producer.batch-size:131072}") int batchSize,
+                                @Value("${coffeeshop.kafka.producer.compression-type:lz4}") String compressionType,
+                                @Value("${coffeeshop.kafka.producer.max-in-flight-requests:5}") int maxInFlightRequests) {
+        this.acks = acks;
+        this.idempotence = idempotence;
+        this.lingerMs = lingerMs;
+        this.batchSize = batchSize;
+        this.compressionType = compressionType;
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public Map<String, Object> asProducerConfig() {
+        Map<String, Object> props = new HashMap<>();
+        props.put(ProducerConfig.ACKS_CONFIG, acks);
+        props.put(ProducerConfig.ENABLE_IDEMPOTENCE_CONFIG, idempotence);
+        props.put(ProducerConfig.LINGER_MS_CONFIG, lingerMs);
+        props.put(ProducerConfig.BATCH_SIZE_CONFIG, batchSize);
+        props.put(ProducerConfig.COMPRESSION_TYPE_CONFIG, compressionType);
+        // Idempotence keeps per-partition ordering with up to 5 in-flight requests
+        props.put(ProducerConfig.MAX_IN_FLIGHT_REQUESTS_PER_CONNECTION, maxInFlightRequests);
+        return props;
+    }
+}
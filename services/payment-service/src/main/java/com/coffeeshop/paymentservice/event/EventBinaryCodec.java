@@ -0,0 +1,215 @@
+package com.coffeeshop.paymentservice.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+// Compact binary wire format for orders.created / payments.processed (layout in services/README.md)
+public final class EventBinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte SCHEMA_VERSION = 1;
+
+    static final byte ORDER_CREATED = 1;
+    static final byte PAYMENT_PROCESSED = 2;
+
+    private EventBinaryCodec() {}
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == MAGIC;
+    }
+
+    public static boolean supports(Object event) {
+        return event instanceof PaymentProcessedEvent;
+    }
+
+    public static byte[] encode(Object event) {
+        Writer w = new Writer();
+        w.write(MAGIC);
+        w.write(SCHEMA_VERSION);
+        if (event instanceof PaymentProcessedEvent e) {
+            w.write(PAYMENT_PROCESSED);
+            w.writeLong(e.orderId);
+            w.writeString(e.customerUsername);
+            w.writeDecimal(e.amount);
+            w.writeString(e.status);
+            w.writeTimestamp(e.processedAt);
+            w.writeString(null); // paymentMethod, not tracked by payment-service yet
+        } else {
+            throw new SerializationException("No binary schema for " + event.getClass().getName());
+        }
+        return w.toByteArray();
+    }
+
+    public static Object decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Not a binary event frame");
+        }
+        if (data[1] > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported event schema version " + data[1]);
+        }
+        Reader r = new Reader(data, 3);
+        switch (data[2]) {
+            case ORDER_CREATED -> {
+                OrderCreatedEvent e = new OrderCreatedEvent();
+                e.orderId = r.readLong();
+                e.customerUsername = r.readString();
+                e.total = r.readDecimal();
+                e.createdAt = r.readTimestamp();
+                long count = r.readVarLong();
+                for (long i = 0; i < count; i++) {
+                    r.readLong();
+                    r.readString();
+                    r.readDecimal();
+                    r.readLong();
+                }
+                return e;
+            }
+            case PAYMENT_PROCESSED -> {
+                PaymentProcessedEvent e = new PaymentProcessedEvent();
+                e.orderId = r.readLong();
+                e.customerUsername = r.readString();
+                e.amount = r.readDecimal();
+                e.status = r.readString();
+                e.processedAt = r.readTimestamp();
+                r.readString(); // paymentMethod
+                return e;
+            }
+            default -> throw new SerializationException("Unknown event type " + data[2]);
+        }
+    }
+
+    // Nullable fields carry a presence byte; integers are zig-zag varints
+    private static final class Writer {
+        private byte[] buf = new byte[128];
+        private int pos;
+
+        private void ensure(int extra) {
+            if (pos + extra > buf.length) {
+                buf = Arrays.copyOf(buf, Math.max(buf.length * 2, pos + extra));
+            }
+        }
+
+        void write(int b) {
+            ensure(1);
+            buf[pos++] = (byte) b;
+        }
+
+        void writeVarLong(long v) {
+            ensure(10);
+            long zz = (v << 1) ^ (v >> 63);
+            while ((zz & ~0x7FL) != 0) {
+                buf[pos++] = (byte) ((zz & 0x7F) | 0x80);
+                zz >>>= 7;
+            }
+            buf[pos++] = (byte) zz;
+        }
+
+        void writeLong(Long v) {
+            write(v == null ? 0 : 1);
+            if (v != null) writeVarLong(v);
+        }
+
+        void writeBytes(byte[] b) {
+            writeVarLong(b.length);
+            ensure(b.length);
+            System.arraycopy(b, 0, buf, pos, b.length);
+            pos += b.length;
+        }
+
+        void writeString(String s) {
+            write(s == null ? 0 : 1);
+            if (s != null) writeBytes(s.getBytes(StandardCharsets.UTF_8));
+        }
+
+        void writeDecimal(BigDecimal d) {
+            write(d == null ? 0 : 1);
+            if (d != null) {
+                writeVarLong(d.scale());
+                writeBytes(d.unscaledValue().toByteArray());
+            }
+        }
+
+        void writeTimestamp(LocalDateTime t) {
+            write(t == null ? 0 : 1);
+            if (t != null) {
+                writeVarLong(t.toEpochSecond(ZoneOffset.UTC));
+                writeVarLong(t.getNano());
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buf, pos);
+        }
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        private int next() {
+            if (pos >= data.length) {
+                throw new SerializationException("Truncated binary event");
+            }
+            return data[pos++] & 0xFF;
+        }
+
+        private boolean present() {
+            return next() != 0;
+        }
+
+        long readVarLong() {
+            long zz = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = next();
+                zz |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zz >>> 1) ^ -(zz & 1);
+        }
+
+        Long readLong() {
+            return present() ? readVarLong() : null;
+        }
+
+        byte[] readBytes() {
+            int len = (int) readVarLong();
+            if (len < 0 || pos + len > data.length) {
+                throw new SerializationException("Truncated binary event");
+            }
+            byte[] b = new byte[len];
+            System.arraycopy(data, pos, b, 0, len);
+            pos += len;
+            return b;
+        }
+
+        String readString() {
+            return present() ? new String(readBytes(), StandardCharsets.UTF_8) : null;
+        }
+
+        BigDecimal readDecimal() {
+            if (!present()) return null;
+            int scale = (int) readVarLong();
+            return new BigDecimal(new BigInteger(readBytes()), scale);
+        }
+
+        LocalDateTime readTimestamp() {
+            if (!present()) return null;
+            long seconds = readVarLong();
+            int nanos = (int) readVarLong();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+    }
+}
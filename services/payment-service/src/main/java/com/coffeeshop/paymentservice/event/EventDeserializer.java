@@ -0,0 +1,43 @@
+package com.coffeeshop.paymentservice.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.apache.kafka.common.errors.SerializationException;
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Deserializer;
+import org.springframework.kafka.support.JacksonUtils;
+
+import java.io.IOException;
+import java.util.Map;
+
+// Accepts both wire formats: binary frames are recognised by their magic byte, anything else is JSON for the topic's type
+public class EventDeserializer implements Deserializer<Object> {
+
+    private static final Map<String, Class<?>> TOPIC_TYPES = Map.of(
+            "orders.created", OrderCreatedEvent.class);
+
+    private final ObjectMapper objectMapper = JacksonUtils.enhancedObjectMapper();
+
+    @Override
+    public Object deserialize(String topic, byte[] data) {
+        if (data == null) {
+            return null;
+        }
+        if (EventBinaryCodec.isBinary(data)) {
+            return EventBinaryCodec.decode(data);
+        }
+        Class<?> type = TOPIC_TYPES.get(topic);
+        if (type == null) {
+            throw new SerializationException("No event type registered for topic " + topic);
+        }
+        try {
+            return objectMapper.readValue(data, type);
+        } catch (IOException e) {
+            throw new SerializationException("Failed to read JSON event from " + topic, e);
+        }
+    }
+
+    @Override
+    public Object deserialize(String topic, Headers headers, byte[] data) {
+        return deserialize(topic, data);
+    }
+}
@@ -0,0 +1,53 @@
+package com.coffeeshop.paymentservice.event;
+
+import org.apache.kafka.common.header.Headers;
+import org.apache.kafka.common.serialization.Serializer;
+import org.springframework.kafka.support.serializer.JsonSerializer;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Writes the compact binary frame for topics listed in coffeeshop.kafka.binary-topics (passed in under
+// BINARY_TOPICS_CONFIG with the producer properties), JSON otherwise
+public class EventSerializer implements Serializer<Object> {
+
+    public static final String BINARY_TOPICS_CONFIG = "coffeeshop.wire-format.binary-topics";
+
+    private final JsonSerializer<Object> json = new JsonSerializer<>();
+    private Set<String> binaryTopics = Set.of();
+
+    @Override
+    public void configure(Map<String, ?> configs, boolean isKey) {
+        json.configure(configs, isKey);
+        Object topics = configs.get(BINARY_TOPICS_CONFIG);
+        if (topics instanceof Collection<?> c) {
+            binaryTopics = c.stream().map(String::valueOf).collect(Collectors.toSet());
+        } else if (topics instanceof String s) {
+            binaryTopics = Arrays.stream(s.split(",")).map(String::trim).filter(t -> !t.isEmpty()).collect(Collectors.toSet());
+        }
+    }
+
+    @Override
+    public byte[] serialize(String topic, Object data) {
+        return serialize(topic, null, data);
+    }
+
+    @Override
+    public byte[] serialize(String topic, Headers headers, Object data) {
+        if (data == null) {
+            return null;
+        }
+        if (binaryTopics.contains(topic) && EventBinaryCodec.supports(data)) {
+            return EventBinaryCodec.encode(data);
+        }
+        return json.serialize(topic, headers, data);
+    }
+
+    @Override
+    public void close() {
+        json.close();
+    }
+}
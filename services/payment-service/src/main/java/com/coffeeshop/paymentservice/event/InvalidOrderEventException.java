@@ -0,0 +1,9 @@
+package com.coffeeshop.paymentservice.event;
+
+// An order event that can never be paid (unreadable, or missing its order, customer or total); retrying it won't help
+public class InvalidOrderEventException extends RuntimeException {
+
+    public InvalidOrderEventException(String message) {
+        super(message);
+    }
+}
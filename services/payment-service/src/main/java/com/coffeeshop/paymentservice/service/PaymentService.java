@@ -1,63 +1,95 @@
 package com.coffeeshop.paymentservice.service;
 
+import com.coffeeshop.paymentservice.event.InvalidOrderEventException;
 import com.coffeeshop.paymentservice.event.OrderCreatedEvent;
 import com.coffeeshop.paymentservice.event.PaymentProcessedEvent;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.kafka.annotation.KafkaListener;
 import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.kafka.listener.BatchListenerFailedException;
+import org.springframework.kafka.support.SendResult;
 import org.springframework.stereotype.Service;
-import org.springframework.web.reactive.function.client.WebClient;
 
-import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.Random;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 @Service
 public class PaymentService {
     
     private static final Logger log = LoggerFactory.getLogger(PaymentService.class);
     private final KafkaTemplate<String, Object> kafkaTemplate;
-    private final WebClient webClient;
-    private final Random random = new Random();
     
-    public PaymentService(KafkaTemplate<String, Object> kafkaTemplate, WebClient.Builder webClientBuilder) {
+    public PaymentService(KafkaTemplate<String, Object> kafkaTemplate) {
         this.kafkaTemplate = kafkaTemplate;
-        this.webClient = webClientBuilder.baseUrl("http://order-service:8084").build();
     }
     
+    // Handles a whole poll as one producer batch; order-service applies the status changes from payments.processed.
+    // Returns only once every result is on the broker: a failed send fails the batch, so it is redelivered
+    // instead of its offsets being committed. An event that can't be paid fails only itself: the results before
+    // it are published first, and BatchListenerFailedException tells the error handler to commit up to it,
+    // skip it and redeliver the rest.
     @KafkaListener(topics = "orders.created", groupId = "payment-service")
-    public void handleOrderCreated(OrderCreatedEvent event) {
-        log.info("Processing payment for order: {}", event.orderId);
+    public void handleOrderCreated(List<OrderCreatedEvent> events) {
+        log.info("Processing payments for {} orders", events.size());
         
-        // Simulate payment processing (90% success rate)
-        boolean paymentSuccess = random.nextDouble() > 0.1;
-        
-        PaymentProcessedEvent paymentEvent = new PaymentProcessedEvent();
-        paymentEvent.orderId = event.orderId;
-        paymentEvent.customerUsername = event.customerUsername;
-        paymentEvent.amount = event.total;
-        paymentEvent.status = paymentSuccess ? "SUCCESS" : "FAILED";
-        paymentEvent.processedAt = LocalDateTime.now();
-        
-        // Publish payment result
-        kafkaTemplate.send("payments.processed", paymentEvent);
-        
-        // Update order status via REST call
-        if (paymentSuccess) {
-            try {
-                webClient.put()
-                    .uri("/api/orders/{id}/status", event.orderId)
-                    .bodyValue("PAID")
-                    .retrieve()
-                    .bodyToMono(Void.class)
-                    .block();
-                log.info("Updated order {} status to PAID", event.orderId);
-            } catch (Exception e) {
-                log.error("Failed to update order status", e);
+        List<CompletableFuture<SendResult<String, Object>>> sends = new ArrayList<>(events.size());
+        for (int i = 0; i < events.size(); i++) {
+            OrderCreatedEvent event = events.get(i);
+            String problem = validate(event);
+            if (problem != null) {
+                awaitSends(sends);
+                throw new BatchListenerFailedException("Skipping order event: " + problem,
+                        new InvalidOrderEventException(problem), i);
             }
+            // Simulate payment processing (90% success rate), seeded by the order so a redelivery gets the same outcome
+            boolean paymentSuccess = new SplittableRandom(event.orderId).nextDouble() > 0.1;
+            
+            PaymentProcessedEvent paymentEvent = new PaymentProcessedEvent();
+            paymentEvent.orderId = event.orderId;
+            paymentEvent.customerUsername = event.customerUsername;
+            paymentEvent.amount = event.total;
+            paymentEvent.status = paymentSuccess ? "SUCCESS" : "FAILED";
+            paymentEvent.processedAt = LocalDateTime.now();
+            
+            // Publish payment result, keyed by order id so all events of an order stay on one partition
+            sends.add(kafkaTemplate.send("payments.processed", String.valueOf(event.orderId), paymentEvent));
+            log.debug("Payment processed for order {}: {}", event.orderId, paymentEvent.status);
         }
-        
-        log.info("Payment processed for order {}: {}", event.orderId, paymentEvent.status);
+        awaitSends(sends);
+    }
+
+    private void awaitSends(List<CompletableFuture<SendResult<String, Object>>> sends) {
+        if (sends.isEmpty()) {
+            return;
+        }
+        // Push the accumulated records out now instead of waiting for linger.ms
+        kafkaTemplate.flush();
+        try {
+            CompletableFuture.allOf(sends.toArray(CompletableFuture[]::new)).join();
+        } catch (CompletionException e) {
+            throw new RuntimeException("Failed to publish payment results, batch will be redelivered", e.getCause());
+        }
+    }
+
+    // Null when the order can be paid; a null event is one the deserializer couldn't read
+    private static String validate(OrderCreatedEvent event) {
+        if (event == null) {
+            return "unreadable event";
+        }
+        if (event.orderId == null) {
+            return "no order id";
+        }
+        if (event.customerUsername == null || event.customerUsername.isBlank()) {
+            return "no customer for order " + event.orderId;
+        }
+        if (event.total == null || event.total.signum() < 0) {
+            return "invalid total for order " + event.orderId;
+        }
+        return null;
     }
 }
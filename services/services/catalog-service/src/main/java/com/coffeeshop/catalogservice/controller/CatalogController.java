@@ -1,11 +1,20 @@
 package com.coffeeshop.catalogservice.controller;
 
 import com.coffeeshop.catalogservice.dto.CreateProductRequest;
+import com.coffeeshop.catalogservice.dto.ProductSearchResult;
 import com.coffeeshop.catalogservice.model.Product;
+import com.coffeeshop.catalogservice.service.MenuSnapshotCache;
+import com.coffeeshop.catalogservice.service.MenuSnapshotCache.MenuSnapshot;
+import com.coffeeshop.catalogservice.service.ProductSearchIndex;
 import com.coffeeshop.catalogservice.service.ProductService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.math.BigDecimal;
 import java.util.List;
 
 @RestController
@@ -13,14 +22,65 @@ import java.util.List;
 public class CatalogController {
 
     private final ProductService service;
+    private final MenuSnapshotCache menuCache;
+    private final ProductSearchIndex searchIndex;
 
-    public CatalogController(ProductService service) {
+    public CatalogController(ProductService service, MenuSnapshotCache menuCache, ProductSearchIndex searchIndex) {
         this.service = service;
+        this.menuCache = menuCache;
+        this.searchIndex = searchIndex;
     }
 
+    // Served from the pre-serialized menu snapshot; clients revalidate with If-None-Match and usually get a 304
     @GetMapping("/items")
-    public List<Product> list() {
-        return service.findAll();
+    public ResponseEntity<byte[]> list(
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding
+    ) {
+        MenuSnapshot menu = menuCache.current();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        String etag = gzip ? menu.gzipEtag() : menu.etag();
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING);
+        if (ifNoneMatch != null && matches(ifNoneMatch, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).headers(response.build().getHeaders()).build();
+        }
+        response.contentType(MediaType.APPLICATION_JSON);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(menu.gzip());
+        }
+        return response.body(menu.json());
+    }
+
+    private static boolean matches(String ifNoneMatch, String etag) {
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || tag.equals(etag) || tag.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Multi-get used by order-service to resolve a whole cart in one round trip
+    @GetMapping(value = "/items", params = "ids")
+    public List<Product> listByIds(@RequestParam List<Long> ids) {
+        return service.findAllByIds(ids);
+    }
+
+    // Prefix and one-typo matching on product names, answered from the in-memory index
+    @GetMapping("/items/search")
+    public ProductSearchResult search(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) BigDecimal minPrice,
+            @RequestParam(required = false) BigDecimal maxPrice,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return searchIndex.search(q, minPrice, maxPrice, page, size);
     }
 
     @GetMapping("/items/{id}")
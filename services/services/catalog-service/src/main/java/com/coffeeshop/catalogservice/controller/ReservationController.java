@@ -0,0 +1,44 @@
+package com.coffeeshop.catalogservice.controller;
+
+import com.coffeeshop.catalogservice.dto.ReserveStockRequest;
+import com.coffeeshop.catalogservice.dto.StockReservationResponse;
+import com.coffeeshop.catalogservice.service.StockReservationService;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/catalog/reservations")
+public class ReservationController {
+
+    private final StockReservationService service;
+
+    public ReservationController(StockReservationService service) {
+        this.service = service;
+    }
+
+    // Reserves every item of the request or none of them (409 lists the short products)
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public StockReservationResponse reserve(@RequestBody ReserveStockRequest req) {
+        return service.reserve(req);
+    }
+
+    // Called by order-service at checkout; 409 when the order's stock is no longer held and can't be taken again
+    @PostMapping(value = "/checkout", params = "orderId")
+    public Map<String, Integer> holdForCheckout(@RequestParam Long orderId) {
+        return Map.of("held", service.holdForCheckout(orderId));
+    }
+
+    @DeleteMapping("/{id}")
+    public Map<String, Integer> release(@PathVariable Long id) {
+        return Map.of("released", service.release(id));
+    }
+
+    // Releases all reservations of an order, e.g. when it is cancelled
+    @DeleteMapping(params = "orderId")
+    public Map<String, Integer> releaseOrder(@RequestParam Long orderId) {
+        return Map.of("released", service.releaseOrder(orderId));
+    }
+}
@@ -0,0 +1,6 @@
+package com.coffeeshop.catalogservice.dto;
+
+import java.math.BigDecimal;
+
+// Stock is left out on purpose: it changes with every reservation, fetch it from /items/{id} when needed
+public record ProductSearchHit(Long id, String name, BigDecimal price, String imageUrl) {}
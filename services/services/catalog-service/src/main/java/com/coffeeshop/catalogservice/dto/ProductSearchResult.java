@@ -0,0 +1,5 @@
+package com.coffeeshop.catalogservice.dto;
+
+import java.util.List;
+
+public record ProductSearchResult(List<ProductSearchHit> items, long total, int page, int size) {}
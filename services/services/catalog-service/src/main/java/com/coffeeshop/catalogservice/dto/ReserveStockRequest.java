@@ -0,0 +1,32 @@
+package com.coffeeshop.catalogservice.dto;
+
+import java.util.List;
+
+public class ReserveStockRequest {
+    private Long orderId;
+    private List<Item> items;
+
+    public Long getOrderId() { return orderId; }
+    public void setOrderId(Long orderId) { this.orderId = orderId; }
+
+    public List<Item> getItems() { return items; }
+    public void setItems(List<Item> items) { this.items = items; }
+
+    public static class Item {
+        private Long productId;
+        private Integer quantity;
+
+        public Item() {}
+
+        public Item(Long productId, Integer quantity) {
+            this.productId = productId;
+            this.quantity = quantity;
+        }
+
+        public Long getProductId() { return productId; }
+        public void setProductId(Long productId) { this.productId = productId; }
+
+        public Integer getQuantity() { return quantity; }
+        public void setQuantity(Integer quantity) { this.quantity = quantity; }
+    }
+}
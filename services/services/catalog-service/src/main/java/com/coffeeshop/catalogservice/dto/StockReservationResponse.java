@@ -0,0 +1,5 @@
+package com.coffeeshop.catalogservice.dto;
+
+import java.time.LocalDateTime;
+
+public record StockReservationResponse(Long reservationId, Long orderId, LocalDateTime expiresAt) {}
@@ -0,0 +1,113 @@
+package com.coffeeshop.catalogservice.event;
+
+import org.apache.kafka.common.errors.SerializationException;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Compact binary wire format for orders.created / payments.processed (layout in services/README.md)
+public final class EventBinaryCodec {
+
+    public static final byte MAGIC = (byte) 0xC5;
+    public static final byte SCHEMA_VERSION = 1;
+
+    static final byte ORDER_CREATED = 1;
+    static final byte PAYMENT_PROCESSED = 2;
+
+    private EventBinaryCodec() {}
+
+    public static boolean isBinary(byte[] data) {
+        return data != null && data.length >= 3 && data[0] == MAGIC;
+    }
+
+    public static Object decode(byte[] data) {
+        if (!isBinary(data)) {
+            throw new SerializationException("Not a binary event frame");
+        }
+        if (data[1] > SCHEMA_VERSION) {
+            throw new SerializationException("Unsupported event schema version " + data[1]);
+        }
+        Reader r = new Reader(data, 3);
+        switch (data[2]) {
+            case PAYMENT_PROCESSED -> {
+                PaymentProcessedEvent e = new PaymentProcessedEvent();
+                e.orderId = r.readLong();
+                r.readString(); // customerUsername
+                r.readDecimal(); // amount
+                e.status = r.readString();
+                e.processedAt = r.readTimestamp();
+                return e;
+            }
+            default -> throw new SerializationException("Unknown event type " + data[2]);
+        }
+    }
+
+    // Nullable fields carry a presence byte; integers are zig-zag varints
+    private static final class Reader {
+        private final byte[] data;
+        private int pos;
+
+        Reader(byte[] data, int pos) {
+            this.data = data;
+            this.pos = pos;
+        }
+
+        private int next() {
+            if (pos >= data.length) {
+                throw new SerializationException("Truncated binary event");
+            }
+            return data[pos++] & 0xFF;
+        }
+
+        private boolean present() {
+            return next() != 0;
+        }
+
+        long readVarLong() {
+            long zz = 0;
+            int shift = 0;
+            int b;
+            do {
+                b = next();
+                zz |= (long) (b & 0x7F) << shift;
+                shift += 7;
+            } while ((b & 0x80) != 0);
+            return (zz >>> 1) ^ -(zz & 1);
+        }
+
+        Long readLong() {
+            return present() ? readVarLong() : null;
+        }
+
+        byte[] readBytes() {
+            int len = (int) readVarLong();
+            if (len < 0 || pos + len > data.length) {
+                throw new SerializationException("Truncated binary event");
+            }
+            byte[] b = new byte[len];
+            System.arraycopy(data, pos, b, 0, len);
+            pos += len;
+            return b;
+        }
+
+        String readString() {
+            return present() ? new String(readBytes(), StandardCharsets.UTF_8) : null;
+        }
+
+        BigDecimal readDecimal() {
+            if (!present()) return null;
+            int scale = (int) readVarLong();
+            return new BigDecimal(new BigInteger(readBytes()), scale);
+        }
+
+        LocalDateTime readTimestamp() {
+            if (!present()) return null;
+            long seconds = readVarLong();
+            int nanos = (int) readVarLong();
+            return LocalDateTime.ofEpochSecond(seconds, nanos, ZoneOffset.UTC);
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package com.coffeeshop.catalogservice.event;
+
+import java.time.LocalDateTime;
+
+// Only the fields catalog-service needs to settle stock reservations
+public class PaymentProcessedEvent {
+    public Long orderId;
+    public String status; // SUCCESS, FAILED
+    public LocalDateTime processedAt;
+}
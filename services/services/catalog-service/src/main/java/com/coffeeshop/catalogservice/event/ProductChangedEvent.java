@@ -0,0 +1,17 @@
+package com.coffeeshop.catalogservice.event;
+
+import java.time.LocalDateTime;
+
+public class ProductChangedEvent {
+    public Long productId;
+    public String changeType; // CREATED, UPDATED, DELETED
+    public LocalDateTime changedAt;
+
+    public ProductChangedEvent() {}
+
+    public ProductChangedEvent(Long productId, String changeType) {
+        this.productId = productId;
+        this.changeType = changeType;
+        this.changedAt = LocalDateTime.now();
+    }
+}
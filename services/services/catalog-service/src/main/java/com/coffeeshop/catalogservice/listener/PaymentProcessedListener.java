@@ -0,0 +1,31 @@
+package com.coffeeshop.catalogservice.listener;
+
+import com.coffeeshop.catalogservice.event.PaymentProcessedEvent;
+import com.coffeeshop.catalogservice.service.StockReservationService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+@Component
+public class PaymentProcessedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(PaymentProcessedListener.class);
+    private final StockReservationService reservationService;
+
+    public PaymentProcessedListener(StockReservationService reservationService) {
+        this.reservationService = reservationService;
+    }
+
+    // Settles the order's reservations: kept for good when paid, restocked when the payment failed
+    @KafkaListener(topics = "payments.processed", groupId = "catalog-service-reservations")
+    public void handlePaymentProcessed(PaymentProcessedEvent event) {
+        if ("SUCCESS".equals(event.status) || "COMPLETED".equals(event.status)) {
+            int confirmed = reservationService.confirmOrder(event.orderId);
+            log.debug("Order {} paid, confirmed {} reservations", event.orderId, confirmed);
+        } else {
+            int released = reservationService.releaseOrder(event.orderId);
+            log.info("Payment for order {} {}, released {} reservations", event.orderId, event.status, released);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.coffeeshop.catalogservice.listener;
+
+import com.coffeeshop.catalogservice.event.ProductChangedEvent;
+import com.coffeeshop.catalogservice.service.MenuSnapshotCache;
+import com.coffeeshop.catalogservice.service.ProductSearchIndex;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.kafka.annotation.KafkaListener;
+import org.springframework.stereotype.Component;
+
+import java.util.UUID;
+
+@Component
+public class ProductChangedListener {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangedListener.class);
+    private final MenuSnapshotCache menuCache;
+    private final ProductSearchIndex searchIndex;
+    private final String groupId;
+
+    // Each instance joins with its own group id. A configured one is stable across restarts; without it every
+    // start gets a fresh, unique id (the broker expires the old group). Never a shared default, or instances
+    // in one group would each miss the changes the others consumed.
+    public ProductChangedListener(MenuSnapshotCache menuCache, ProductSearchIndex searchIndex,
+                                  @Value("${catalog.menu.group-id:}") String groupId) {
+        this.menuCache = menuCache;
+        this.searchIndex = searchIndex;
+        this.groupId = groupId.isBlank() ? "catalog-service-menu-" + UUID.randomUUID() : groupId;
+    }
+
+    public String getGroupId() {
+        return groupId;
+    }
+
+    // Changes made through another catalog-service instance
+    @KafkaListener(
+            topics = "catalog.products.changed",
+            groupId = "#{__listener.groupId}",
+            properties = "auto.offset.reset=latest")
+    public void handleProductChanged(ProductChangedEvent event) {
+        log.debug("Product {} {}, invalidating menu snapshot", event.productId, event.changeType);
+        menuCache.invalidate();
+        if (event.productId != null) {
+            searchIndex.refresh(event.productId);
+        }
+    }
+}
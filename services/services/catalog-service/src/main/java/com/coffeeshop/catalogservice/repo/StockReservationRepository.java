@@ -0,0 +1,124 @@
+package com.coffeeshop.catalogservice.repo;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public class StockReservationRepository {
+
+    public record ReservedItem(Long productId, int quantity) {}
+
+    // Check and decrement in one statement: no read-modify-write, and only the product's own row is locked
+    private static final String DECREMENT_SQL = "UPDATE products SET stock = stock - ? WHERE id = ? AND stock >= ?";
+    private static final String INCREMENT_SQL = "UPDATE products SET stock = stock + ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    public StockReservationRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    }
+
+    // Items must be sorted by product id so concurrent reservations lock rows in the same order (no deadlocks).
+    // Returns one update count per item; 0 means not enough stock (or no such product).
+    public int[] decrementStock(List<ReservedItem> items) {
+        return jdbcTemplate.batchUpdate(DECREMENT_SQL, items, items.size(), (ps, item) -> {
+            ps.setInt(1, item.quantity());
+            ps.setLong(2, item.productId());
+            ps.setInt(3, item.quantity());
+        })[0];
+    }
+
+    public void incrementStock(List<ReservedItem> items) {
+        jdbcTemplate.batchUpdate(INCREMENT_SQL, items, items.size(), (ps, item) -> {
+            ps.setInt(1, item.quantity());
+            ps.setLong(2, item.productId());
+        });
+    }
+
+    public long insertReservation(Long orderId, String status, LocalDateTime expiresAt) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(con -> {
+            PreparedStatement ps = con.prepareStatement(
+                    "INSERT INTO stock_reservations (order_id, status, expires_at) VALUES (?, ?, ?)", new String[]{"id"});
+            ps.setLong(1, orderId);
+            ps.setString(2, status);
+            ps.setTimestamp(3, Timestamp.valueOf(expiresAt));
+            return ps;
+        }, keys);
+        return keys.getKey().longValue();
+    }
+
+    public void insertItems(long reservationId, List<ReservedItem> items) {
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO stock_reservation_items (reservation_id, product_id, quantity) VALUES (?, ?, ?)",
+                items, items.size(), (ps, item) -> {
+                    ps.setLong(1, reservationId);
+                    ps.setLong(2, item.productId());
+                    ps.setInt(3, item.quantity());
+                });
+    }
+
+    // The lock* queries take row locks on the reservations, so two releases of the same one can't both restock
+
+    public List<Long> lockById(Long reservationId, Collection<String> statuses) {
+        return namedJdbcTemplate.queryForList(
+                "SELECT id FROM stock_reservations WHERE id = :id AND status IN (:statuses) FOR UPDATE",
+                new MapSqlParameterSource("id", reservationId).addValue("statuses", statuses), Long.class);
+    }
+
+    public List<Long> lockByOrder(Long orderId, Collection<String> statuses) {
+        return namedJdbcTemplate.queryForList(
+                "SELECT id FROM stock_reservations WHERE order_id = :orderId AND status IN (:statuses) ORDER BY id FOR UPDATE",
+                new MapSqlParameterSource("orderId", orderId).addValue("statuses", statuses), Long.class);
+    }
+
+    // Creates the order's row on first use and locks it; returns whether the order has been paid
+    public boolean lockOrder(Long orderId) {
+        jdbcTemplate.update("INSERT INTO stock_reservation_orders (order_id) VALUES (?) ON CONFLICT DO NOTHING", orderId);
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT paid FROM stock_reservation_orders WHERE order_id = ? FOR UPDATE", Boolean.class, orderId));
+    }
+
+    public void markOrderPaid(Long orderId) {
+        jdbcTemplate.update("UPDATE stock_reservation_orders SET paid = TRUE WHERE order_id = ?", orderId);
+    }
+
+    // SKIP LOCKED: several catalog-service instances can sweep at once without waiting on each other
+    public List<Long> lockExpired(LocalDateTime now, int limit) {
+        return jdbcTemplate.queryForList(
+                "SELECT id FROM stock_reservations WHERE status = 'ACTIVE' AND expires_at < ? ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED",
+                Long.class, Timestamp.valueOf(now), limit);
+    }
+
+    // Quantities per product over all given reservations, in product id order
+    public List<ReservedItem> sumItems(Collection<Long> reservationIds) {
+        return namedJdbcTemplate.query(
+                "SELECT product_id, SUM(quantity) AS quantity FROM stock_reservation_items"
+                        + " WHERE reservation_id IN (:ids) GROUP BY product_id ORDER BY product_id",
+                new MapSqlParameterSource("ids", reservationIds),
+                (rs, i) -> new ReservedItem(rs.getLong("product_id"), rs.getInt("quantity")));
+    }
+
+    // Back to ACTIVE (an expired hold whose stock was taken again) with a new expiry
+    public void hold(Collection<Long> reservationIds, LocalDateTime expiresAt) {
+        namedJdbcTemplate.update("UPDATE stock_reservations SET status = 'ACTIVE', expires_at = :expiresAt WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", reservationIds).addValue("expiresAt", Timestamp.valueOf(expiresAt)));
+    }
+
+    public void updateStatus(Collection<Long> reservationIds, String status) {
+        namedJdbcTemplate.update("UPDATE stock_reservations SET status = :status WHERE id IN (:ids)",
+                new MapSqlParameterSource("ids", reservationIds).addValue("status", status));
+    }
+}
@@ -0,0 +1,112 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.model.Product;
+import com.coffeeshop.catalogservice.repo.ProductRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+// The full menu, serialized and gzipped once per change instead of once per request
+@Service
+public class MenuSnapshotCache {
+
+    public record MenuSnapshot(long generation, String etag, String gzipEtag, byte[] json, byte[] gzip) {}
+
+    private static final Logger log = LoggerFactory.getLogger(MenuSnapshotCache.class);
+    private final ProductRepository repo;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicBoolean stockChanged = new AtomicBoolean();
+    private volatile MenuSnapshot snapshot;
+
+    public MenuSnapshotCache(ProductRepository repo, ObjectMapper objectMapper) {
+        this.repo = repo;
+        this.objectMapper = objectMapper;
+    }
+
+    public MenuSnapshot current() {
+        MenuSnapshot s = snapshot;
+        if (s != null && s.generation() == generation.get()) {
+            return s;
+        }
+        return rebuild();
+    }
+
+    // Called after every committed product change; the next read rebuilds
+    public void invalidate() {
+        generation.incrementAndGet();
+    }
+
+    // Stock moves with every reservation, release and expiry; those only mark the menu stale and are folded
+    // into one rebuild per refresh interval, so a busy till doesn't rebuild (and re-download) it per order
+    public void stockChanged() {
+        stockChanged.set(true);
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.menu.stock-refresh-ms:5000}")
+    public void refreshStock() {
+        if (stockChanged.getAndSet(false)) {
+            invalidate();
+        }
+    }
+
+    private synchronized MenuSnapshot rebuild() {
+        // Read the generation before loading: if a change lands while we build, the result is served once
+        // to this caller but not kept, and the next read rebuilds again
+        long gen = generation.get();
+        MenuSnapshot s = snapshot;
+        if (s != null && s.generation() == gen) {
+            return s;
+        }
+        List<Product> products = repo.findAll(Sort.by("id"));
+        byte[] json = toJson(products);
+        String hash = sha256(json);
+        s = new MenuSnapshot(gen, "\"" + hash + "\"", "\"" + hash + "-gzip\"", json, gzip(json));
+        if (generation.get() == gen) {
+            snapshot = s;
+        }
+        log.debug("Rebuilt menu snapshot: {} products, {} bytes ({} gzipped)", products.size(), json.length, s.gzip().length);
+        return s;
+    }
+
+    private byte[] toJson(List<Product> products) {
+        try {
+            return objectMapper.writeValueAsBytes(products);
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Failed to serialize menu", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    private static String sha256(byte[] data) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(data));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.event.ProductChangedEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.kafka.core.KafkaTemplate;
+import org.springframework.stereotype.Service;
+
+@Service
+public class ProductEventService {
+
+    public static final String PRODUCTS_CHANGED_TOPIC = "catalog.products.changed";
+
+    private static final Logger log = LoggerFactory.getLogger(ProductEventService.class);
+    private final KafkaTemplate<String, Object> kafkaTemplate;
+
+    public ProductEventService(KafkaTemplate<String, Object> kafkaTemplate) {
+        this.kafkaTemplate = kafkaTemplate;
+    }
+
+    public void publishProductChanged(Long productId, String changeType) {
+        log.info("Publishing ProductChanged event for product {}: {}", productId, changeType);
+        kafkaTemplate.send(PRODUCTS_CHANGED_TOPIC, String.valueOf(productId), new ProductChangedEvent(productId, changeType));
+    }
+}
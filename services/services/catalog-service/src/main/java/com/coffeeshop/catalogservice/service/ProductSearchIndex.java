@@ -0,0 +1,397 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.dto.ProductSearchHit;
+import com.coffeeshop.catalogservice.dto.ProductSearchResult;
+import com.coffeeshop.catalogservice.model.Product;
+import com.coffeeshop.catalogservice.repo.ProductRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.regex.Pattern;
+
+// In-memory search over product names: a sorted term dictionary for exact and prefix matches,
+// a single-deletion index for one-typo matches, and a price-ordered set for range queries.
+// Reads are lock-free; writes come from ProductService and the product change listener.
+@Service
+public class ProductSearchIndex {
+
+    public static final int MAX_PAGE_SIZE = 100;
+
+    // Terms shorter than this only match exactly or by prefix; typos in 2-3 letter words match too much
+    private static final int MIN_FUZZY_LENGTH = 4;
+
+    private static final int EXACT = 3;
+    private static final int PREFIX = 2;
+    private static final int FUZZY = 1;
+
+    private static final Pattern NON_ALPHANUMERIC = Pattern.compile("[^\\p{Alnum}]+");
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+
+    // Identity equality on purpose: posting sets hold the indexed instance, so lookups never go through the id map
+    private static final class Doc {
+        final long id;
+        final String name;
+        final String sortName;
+        final BigDecimal price;
+        final String imageUrl;
+        final String[] terms;
+
+        Doc(long id, String name, BigDecimal price, String imageUrl, String[] terms) {
+            this.id = id;
+            this.name = name;
+            this.sortName = name.toLowerCase(Locale.ROOT);
+            this.price = price;
+            this.imageUrl = imageUrl;
+            this.terms = terms;
+        }
+    }
+
+    private record Hit(Doc doc, int score) {}
+
+    // Best first: match score, then name, then id
+    private static final Comparator<Hit> RANKING = (a, b) -> compare(a.score(), a.doc(), b.score(), b.doc());
+
+    // Dictionary terms matching one query word with their scores, and how many postings they cover
+    private record WordMatch(Map<String, Integer> scores, List<Set<Doc>> postings, long size) {}
+
+    private record PriceKey(BigDecimal price, long id) implements Comparable<PriceKey> {
+        @Override
+        public int compareTo(PriceKey o) {
+            int c = price.compareTo(o.price);
+            return c != 0 ? c : Long.compare(id, o.id);
+        }
+    }
+
+    // One generation of the index: a rebuild fills a fresh one off to the side and swaps it in whole
+    private static final class Index {
+        final Map<Long, Doc> docs = new ConcurrentHashMap<>();
+        final ConcurrentSkipListMap<String, Set<Doc>> postings = new ConcurrentSkipListMap<>();
+        final Map<String, Set<String>> deletions = new ConcurrentHashMap<>();
+        final NavigableSet<PriceKey> byPrice = new ConcurrentSkipListSet<>();
+
+        void add(Product product) {
+            if (product.getId() == null || product.getName() == null) {
+                return;
+            }
+            BigDecimal price = product.getPrice() == null ? BigDecimal.ZERO : product.getPrice();
+            String[] terms = new LinkedHashSet<>(tokenize(product.getName())).toArray(String[]::new);
+            Doc doc = new Doc(product.getId(), product.getName(), price, product.getImageUrl(), terms);
+            docs.put(doc.id, doc);
+            byPrice.add(new PriceKey(price, doc.id));
+            for (String term : terms) {
+                boolean newTerm = !postings.containsKey(term);
+                postings.computeIfAbsent(term, t -> ConcurrentHashMap.newKeySet()).add(doc);
+                if (newTerm) {
+                    for (String variant : deletesOf(term)) {
+                        deletions.computeIfAbsent(variant, v -> ConcurrentHashMap.newKeySet()).add(term);
+                    }
+                }
+            }
+        }
+
+        void remove(Long productId) {
+            Doc doc = docs.remove(productId);
+            if (doc == null) {
+                return;
+            }
+            byPrice.remove(new PriceKey(doc.price, doc.id));
+            for (String term : doc.terms) {
+                Set<Doc> posting = postings.get(term);
+                if (posting != null) {
+                    posting.remove(doc);
+                    if (posting.isEmpty()) {
+                        postings.remove(term);
+                        for (String variant : deletesOf(term)) {
+                            Set<String> terms = deletions.get(variant);
+                            if (terms != null) {
+                                terms.remove(term);
+                                if (terms.isEmpty()) deletions.remove(variant);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    // Optimistic reads that overlap a write are retried this many times before taking the writers' lock
+    private static final int READ_ATTEMPTS = 3;
+
+    private static final Logger log = LoggerFactory.getLogger(ProductSearchIndex.class);
+    private final ProductRepository repo;
+    // Null until the first load
+    private volatile Index index;
+    // Odd while a put or remove is changing the live index, so a search that overlapped one can tell
+    private volatile long writeVersion;
+
+    public ProductSearchIndex(ProductRepository repo) {
+        this.repo = repo;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void load() {
+        rebuild(repo.findAll());
+    }
+
+    public synchronized void rebuild(Collection<Product> products) {
+        Index fresh = new Index();
+        products.forEach(fresh::add);
+        index = fresh;
+        log.info("Indexed {} products, {} terms", fresh.docs.size(), fresh.postings.size());
+    }
+
+    // Before the first load there is nothing to update: the load reads the change from the database
+    public synchronized void put(Product product) {
+        Index idx = index;
+        if (idx != null) {
+            writeVersion++;
+            idx.remove(product.getId());
+            idx.add(product);
+            writeVersion++;
+        }
+    }
+
+    // Reloads one product after a change made elsewhere (another instance, or a delete)
+    public void refresh(Long productId) {
+        repo.findById(productId).ifPresentOrElse(this::put, () -> remove(productId));
+    }
+
+    public synchronized void remove(Long productId) {
+        Index idx = index;
+        if (idx != null) {
+            writeVersion++;
+            idx.remove(productId);
+            writeVersion++;
+        }
+    }
+
+    // Every query word has to match a word of the name (exactly, as a prefix or with one typo);
+    // results are ranked by match quality, then name. An empty query lists the price range cheapest first.
+    public ProductSearchResult search(String query, BigDecimal minPrice, BigDecimal maxPrice, int page, int size) {
+        if (index == null) {
+            synchronized (this) {
+                if (index == null) {
+                    load();
+                }
+            }
+        }
+        for (int attempt = 0; attempt < READ_ATTEMPTS; attempt++) {
+            long version = writeVersion;
+            if ((version & 1) == 0) {
+                ProductSearchResult result = search(index, query, minPrice, maxPrice, page, size);
+                if (writeVersion == version) {
+                    return result;
+                }
+            }
+            Thread.onSpinWait();
+        }
+        synchronized (this) {
+            return search(index, query, minPrice, maxPrice, page, size);
+        }
+    }
+
+    private static ProductSearchResult search(Index idx, String query, BigDecimal minPrice, BigDecimal maxPrice,
+                                              int page, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        int pageNo = Math.max(0, page);
+        List<String> tokens = query == null ? List.of() : tokenize(query);
+
+        if (tokens.isEmpty()) {
+            return browseByPrice(idx, minPrice, maxPrice, pageNo, pageSize);
+        }
+
+        // Resolve each word to the dictionary terms it matches, then walk only the postings of the most
+        // selective word and check the others against each candidate's own terms
+        List<Map<String, Integer>> matches = new ArrayList<>(tokens.size());
+        WordMatch driver = null;
+        for (String token : tokens) {
+            WordMatch match = matchWord(idx, token);
+            if (driver == null || match.size() < driver.size()) {
+                driver = match;
+            }
+            matches.add(match.scores());
+        }
+
+        // Only the requested page has to come out in order: keep the best (page + 1) * size hits in a heap
+        int limit = (pageNo + 1) * pageSize;
+        PriorityQueue<Hit> best = new PriorityQueue<>(Math.min(limit, 1024) + 1, RANKING.reversed());
+        Set<Doc> seen = driver.postings().size() > 1 ? new HashSet<>() : null;
+        long total = 0;
+        for (Set<Doc> posting : driver.postings()) {
+            for (Doc doc : posting) {
+                if ((seen != null && !seen.add(doc)) || !inRange(doc.price, minPrice, maxPrice)) {
+                    continue;
+                }
+                int score = score(doc, matches);
+                if (score == 0) {
+                    continue;
+                }
+                total++;
+                if (best.size() < limit) {
+                    best.add(new Hit(doc, score));
+                } else if (compare(score, doc, best.peek().score(), best.peek().doc()) < 0) {
+                    best.poll();
+                    best.add(new Hit(doc, score));
+                }
+            }
+        }
+
+        List<Hit> ranked = new ArrayList<>(best);
+        ranked.sort(RANKING);
+        int from = Math.min(pageNo * pageSize, ranked.size());
+        return new ProductSearchResult(ranked.subList(from, ranked.size()).stream().map(h -> toHit(h.doc())).toList(),
+                total, pageNo, pageSize);
+    }
+
+    private static int compare(int scoreA, Doc a, int scoreB, Doc b) {
+        if (scoreA != scoreB) {
+            return scoreA > scoreB ? -1 : 1;
+        }
+        int c = a.sortName.compareTo(b.sortName);
+        return c != 0 ? c : Long.compare(a.id, b.id);
+    }
+
+    // Sum over the query words of each word's best match in the name; 0 when any word doesn't match
+    private static int score(Doc doc, List<Map<String, Integer>> matches) {
+        int score = 0;
+        for (Map<String, Integer> terms : matches) {
+            int best = 0;
+            for (String term : doc.terms) {
+                Integer s = terms.get(term);
+                if (s != null && s > best) best = s;
+            }
+            if (best == 0) {
+                return 0;
+            }
+            score += best;
+        }
+        return score;
+    }
+
+    private static WordMatch matchWord(Index idx, String token) {
+        Map<String, Integer> scores = new HashMap<>();
+        List<Set<Doc>> matched = new ArrayList<>();
+        long size = 0;
+        // Prefix range of the sorted dictionary; includes the exact term itself
+        for (Map.Entry<String, Set<Doc>> e : idx.postings.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+            scores.put(e.getKey(), e.getKey().equals(token) ? EXACT : PREFIX);
+            matched.add(e.getValue());
+            size += e.getValue().size();
+        }
+        if (token.length() >= MIN_FUZZY_LENGTH) {
+            for (String term : typoCandidates(idx, token)) {
+                Set<Doc> posting = idx.postings.get(term);
+                if (posting != null && scores.putIfAbsent(term, FUZZY) == null) {
+                    matched.add(posting);
+                    size += posting.size();
+                }
+            }
+        }
+        return new WordMatch(scores, matched, size);
+    }
+
+    // Terms within one insertion, deletion, substitution or adjacent swap of the token
+    private static Set<String> typoCandidates(Index idx, String token) {
+        Set<String> candidates = new LinkedHashSet<>();
+        // token has an extra letter: one of its deletions is a term
+        // token misses a letter: the token is a deletion of a term
+        // substitution or swap: token and term share a deletion
+        List<String> tokenDeletes = deletesOf(token);
+        candidates.addAll(idx.deletions.getOrDefault(token, Set.of()));
+        for (String variant : tokenDeletes) {
+            if (idx.postings.containsKey(variant)) candidates.add(variant);
+            candidates.addAll(idx.deletions.getOrDefault(variant, Set.of()));
+        }
+        candidates.removeIf(term -> term.length() < MIN_FUZZY_LENGTH - 1 || !withinOneEdit(token, term));
+        return candidates;
+    }
+
+    private static ProductSearchResult browseByPrice(Index idx, BigDecimal minPrice, BigDecimal maxPrice, int pageNo, int pageSize) {
+        NavigableSet<PriceKey> range = idx.byPrice;
+        if (minPrice != null) range = range.tailSet(new PriceKey(minPrice, Long.MIN_VALUE), true);
+        if (maxPrice != null) range = range.headSet(new PriceKey(maxPrice, Long.MAX_VALUE), true);
+        List<ProductSearchHit> items = new ArrayList<>(pageSize);
+        long total = 0;
+        long skip = (long) pageNo * pageSize;
+        for (PriceKey key : range) {
+            if (total >= skip && items.size() < pageSize) {
+                Doc doc = idx.docs.get(key.id());
+                if (doc != null) items.add(toHit(doc));
+            }
+            total++;
+        }
+        return new ProductSearchResult(items, total, pageNo, pageSize);
+    }
+
+    private static boolean inRange(BigDecimal price, BigDecimal min, BigDecimal max) {
+        return (min == null || price.compareTo(min) >= 0) && (max == null || price.compareTo(max) <= 0);
+    }
+
+    private static ProductSearchHit toHit(Doc doc) {
+        return new ProductSearchHit(doc.id, doc.name, doc.price, doc.imageUrl);
+    }
+
+    // Lower-cased alphanumeric words with accents folded, so "Caffè" and "caffe" index the same
+    static List<String> tokenize(String text) {
+        String folded = isAscii(text) ? text : MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("");
+        List<String> tokens = new ArrayList<>();
+        for (String t : NON_ALPHANUMERIC.split(folded.toLowerCase(Locale.ROOT))) {
+            if (!t.isEmpty()) tokens.add(t);
+        }
+        return tokens;
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7f) return false;
+        }
+        return true;
+    }
+
+    private static List<String> deletesOf(String term) {
+        if (term.length() < MIN_FUZZY_LENGTH - 1) {
+            return List.of();
+        }
+        List<String> variants = new ArrayList<>(term.length());
+        for (int i = 0; i < term.length(); i++) {
+            variants.add(term.substring(0, i) + term.substring(i + 1));
+        }
+        return variants;
+    }
+
+    // Optimal string alignment distance <= 1, without building the full matrix
+    static boolean withinOneEdit(String a, String b) {
+        int la = a.length();
+        int lb = b.length();
+        if (Math.abs(la - lb) > 1) return false;
+        int i = 0;
+        while (i < la && i < lb && a.charAt(i) == b.charAt(i)) i++;
+        if (i == la || i == lb) return true;
+        if (la == lb) {
+            if (a.regionMatches(i + 1, b, i + 1, la - i - 1)) return true;
+            return i + 1 < la && a.charAt(i) == b.charAt(i + 1) && a.charAt(i + 1) == b.charAt(i)
+                    && a.regionMatches(i + 2, b, i + 2, la - i - 2);
+        }
+        return la > lb ? a.regionMatches(i + 1, b, i, lb - i) : b.regionMatches(i + 1, a, i, la - i);
+    }
+}
@@ -11,9 +11,16 @@ import java.util.List;
 public class ProductService {
 
     private final ProductRepository repo;
+    private final ProductEventService eventService;
+    private final MenuSnapshotCache menuCache;
+    private final ProductSearchIndex searchIndex;
 
-    public ProductService(ProductRepository repo) {
+    public ProductService(ProductRepository repo, ProductEventService eventService, MenuSnapshotCache menuCache,
+                          ProductSearchIndex searchIndex) {
         this.repo = repo;
+        this.eventService = eventService;
+        this.menuCache = menuCache;
+        this.searchIndex = searchIndex;
     }
 
     public Product create(CreateProductRequest req) {
@@ -22,13 +29,21 @@ public class ProductService {
         p.setPrice(req.getPrice());
         p.setStock(req.getStock() == null ? 0 : req.getStock());
         p.setImageUrl(req.getImageUrl());
-        return repo.save(p);
+        Product saved = repo.save(p);
+        menuCache.invalidate();
+        searchIndex.put(saved);
+        eventService.publishProductChanged(saved.getId(), "CREATED");
+        return saved;
     }
 
     public List<Product> findAll() {
         return repo.findAll();
     }
 
+    public List<Product> findAllByIds(List<Long> ids) {
+        return repo.findAllById(ids);
+    }
+
     public Product findById(Long id) {
         return repo.findById(id).orElseThrow(() -> new RuntimeException("Product not found"));
     }
@@ -43,10 +58,17 @@ public class ProductService {
         if (req.getImageUrl() != null) {
             p.setImageUrl(req.getImageUrl());
         }
-        return repo.save(p);
+        Product saved = repo.save(p);
+        menuCache.invalidate();
+        searchIndex.put(saved);
+        eventService.publishProductChanged(saved.getId(), "UPDATED");
+        return saved;
     }
 
     public void delete(Long id) {
         repo.deleteById(id);
+        menuCache.invalidate();
+        searchIndex.remove(id);
+        eventService.publishProductChanged(id, "DELETED");
     }
 }
\ No newline at end of file
@@ -0,0 +1,172 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.dto.ReserveStockRequest;
+import com.coffeeshop.catalogservice.dto.StockReservationResponse;
+import com.coffeeshop.catalogservice.exception.InsufficientStockException;
+import com.coffeeshop.catalogservice.repo.StockReservationRepository;
+import com.coffeeshop.catalogservice.repo.StockReservationRepository.ReservedItem;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+@Service
+public class StockReservationService {
+
+    public static final String ACTIVE = "ACTIVE";
+    public static final String CONFIRMED = "CONFIRMED";
+    public static final String RELEASED = "RELEASED";
+    public static final String EXPIRED = "EXPIRED";
+
+    private static final Logger log = LoggerFactory.getLogger(StockReservationService.class);
+    private final StockReservationRepository repo;
+    private final MenuSnapshotCache menuCache;
+    private final Duration ttl;
+    private final Duration checkoutTtl;
+    private final int expiryBatchSize;
+
+    public StockReservationService(StockReservationRepository repo, MenuSnapshotCache menuCache,
+                                   @Value("${catalog.reservations.ttl:PT15M}") Duration ttl,
+                                   @Value("${catalog.reservations.checkout-ttl:PT24H}") Duration checkoutTtl,
+                                   @Value("${catalog.reservations.expiry-batch-size:500}") int expiryBatchSize) {
+        this.repo = repo;
+        this.menuCache = menuCache;
+        this.ttl = ttl;
+        this.checkoutTtl = checkoutTtl;
+        this.expiryBatchSize = expiryBatchSize;
+    }
+
+    // All or nothing: if any product is short, the transaction rolls back the decrements already made
+    @Transactional
+    public StockReservationResponse reserve(ReserveStockRequest req) {
+        if (req.getOrderId() == null || req.getItems() == null || req.getItems().isEmpty()) {
+            throw new RuntimeException("orderId and at least one item are required");
+        }
+        // Merge repeated products and sort by id, the lock order every reservation follows
+        Map<Long, Integer> quantities = new TreeMap<>();
+        for (ReserveStockRequest.Item item : req.getItems()) {
+            if (item.getProductId() == null || item.getQuantity() == null || item.getQuantity() <= 0) {
+                throw new RuntimeException("Invalid reservation item for product " + item.getProductId());
+            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        List<ReservedItem> items = new ArrayList<>(quantities.size());
+        quantities.forEach((productId, qty) -> items.add(new ReservedItem(productId, qty)));
+
+        // Payment normally comes after every reservation of the order, but if it got here first the stock is already sold.
+        // The order is locked before any product, the same order confirmOrder takes its locks in.
+        String status = repo.lockOrder(req.getOrderId()) ? CONFIRMED : ACTIVE;
+        int[] updated = repo.decrementStock(items);
+        List<Long> shortProducts = new ArrayList<>();
+        for (int i = 0; i < updated.length; i++) {
+            if (updated[i] == 0) {
+                shortProducts.add(items.get(i).productId());
+            }
+        }
+        if (!shortProducts.isEmpty()) {
+            throw new InsufficientStockException(shortProducts);
+        }
+
+        LocalDateTime expiresAt = LocalDateTime.now().plus(ttl);
+        long reservationId = repo.insertReservation(req.getOrderId(), status, expiresAt);
+        repo.insertItems(reservationId, items);
+        markStockChangedAfterCommit();
+        return new StockReservationResponse(reservationId, req.getOrderId(), expiresAt);
+    }
+
+    @Transactional
+    public int release(Long reservationId) {
+        return restock(repo.lockById(reservationId, Set.of(ACTIVE, CONFIRMED)), RELEASED);
+    }
+
+    // Order cancelled or payment failed: everything still held for the order goes back on the shelf
+    @Transactional
+    public int releaseOrder(Long orderId) {
+        return restock(repo.lockByOrder(orderId, Set.of(ACTIVE, CONFIRMED)), RELEASED);
+    }
+
+    // Checkout: the order's items are final and payment is on its way, so its stock must still be held.
+    // Reservations that expired while the cart was open take their stock again (409 if it has gone meanwhile),
+    // and every hold now lasts checkout-ttl instead of the cart ttl. Fails when the order holds nothing.
+    @Transactional
+    public int holdForCheckout(Long orderId) {
+        repo.lockOrder(orderId);
+        List<Long> expired = repo.lockByOrder(orderId, Set.of(EXPIRED));
+        if (!expired.isEmpty()) {
+            List<ReservedItem> items = repo.sumItems(expired);
+            int[] updated = repo.decrementStock(items);
+            List<Long> shortProducts = new ArrayList<>();
+            for (int i = 0; i < updated.length; i++) {
+                if (updated[i] == 0) {
+                    shortProducts.add(items.get(i).productId());
+                }
+            }
+            if (!shortProducts.isEmpty()) {
+                throw new InsufficientStockException(shortProducts);
+            }
+            markStockChangedAfterCommit();
+        }
+        List<Long> held = repo.lockByOrder(orderId, Set.of(ACTIVE, EXPIRED));
+        if (held.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "No stock is held for order " + orderId);
+        }
+        repo.hold(held, LocalDateTime.now().plus(checkoutTtl));
+        return held.size();
+    }
+
+    // Paid: the stock is sold, so the reservation no longer expires. The order is marked paid under its lock,
+    // so a reservation still in flight is confirmed when it lands instead of expiring later.
+    @Transactional
+    public int confirmOrder(Long orderId) {
+        repo.lockOrder(orderId);
+        repo.markOrderPaid(orderId);
+        List<Long> ids = repo.lockByOrder(orderId, Set.of(ACTIVE));
+        if (!ids.isEmpty()) {
+            repo.updateStatus(ids, CONFIRMED);
+        }
+        return ids.size();
+    }
+
+    @Scheduled(fixedDelayString = "${catalog.reservations.expiry-check-ms:30000}")
+    @Transactional
+    public void expireReservations() {
+        int expired = restock(repo.lockExpired(LocalDateTime.now(), expiryBatchSize), EXPIRED);
+        if (expired > 0) {
+            log.info("Expired {} stock reservations", expired);
+        }
+    }
+
+    private int restock(List<Long> reservationIds, String status) {
+        if (reservationIds.isEmpty()) {
+            return 0;
+        }
+        repo.incrementStock(repo.sumItems(reservationIds));
+        repo.updateStatus(reservationIds, status);
+        markStockChangedAfterCommit();
+        return reservationIds.size();
+    }
+
+    // Marking before commit could let the refresh run and a read cache the old stock again
+    private void markStockChangedAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                menuCache.stockChanged();
+            }
+        });
+    }
+}
@@ -0,0 +1,4 @@
+-- Product ids are taken from this sequence in blocks of 50 (allocationSize), which lets Hibernate batch inserts
+CREATE SEQUENCE IF NOT EXISTS products_id_seq;
+
+ALTER SEQUENCE products_id_seq INCREMENT BY 50;
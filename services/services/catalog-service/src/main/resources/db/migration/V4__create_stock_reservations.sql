@@ -0,0 +1,22 @@
+-- Stock is taken out of products.stock when reserved; a reservation ends CONFIRMED (paid),
+-- RELEASED (cancelled or payment failed) or EXPIRED, and the last two put the stock back
+CREATE TABLE stock_reservations (
+  id BIGSERIAL PRIMARY KEY,
+  order_id BIGINT NOT NULL,
+  status VARCHAR(20) NOT NULL,
+  expires_at TIMESTAMP NOT NULL,
+  created_at TIMESTAMP NOT NULL DEFAULT NOW()
+);
+
+CREATE TABLE stock_reservation_items (
+  reservation_id BIGINT NOT NULL REFERENCES stock_reservations(id) ON DELETE CASCADE,
+  product_id BIGINT NOT NULL,
+  quantity INT NOT NULL,
+  PRIMARY KEY (reservation_id, product_id)
+);
+
+CREATE INDEX idx_stock_reservations_order_id ON stock_reservations (order_id);
+CREATE INDEX idx_stock_reservations_status_expires_at ON stock_reservations (status, expires_at);
+
+-- Last line of defence against overselling
+ALTER TABLE products ADD CONSTRAINT chk_products_stock_non_negative CHECK (stock >= 0);
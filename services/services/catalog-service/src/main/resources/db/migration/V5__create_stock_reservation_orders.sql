@@ -0,0 +1,6 @@
+-- One row per order that has held stock. Reservations and payment results of an order lock it first, so a
+-- payment that arrives before the order's reservations marks it paid and the reservations start out CONFIRMED
+CREATE TABLE stock_reservation_orders (
+  order_id BIGINT PRIMARY KEY,
+  paid BOOLEAN NOT NULL DEFAULT FALSE
+);
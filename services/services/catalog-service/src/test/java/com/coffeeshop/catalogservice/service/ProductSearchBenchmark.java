@@ -0,0 +1,65 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.dto.ProductSearchResult;
+import com.coffeeshop.catalogservice.model.Product;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Search latency over 40,000 generated SKUs spread over 200 stores, mixing exact, prefix and one-typo
+ * words with a price cap. Prints microseconds per query.
+ * Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=ProductSearchBenchmark}.
+ */
+class ProductSearchBenchmark {
+
+    private static final int PRODUCTS = 40_000;
+    private static final int WARMUP_QUERIES = 20_000;
+    private static final int MEASURED_QUERIES = 20_000;
+
+    private static final String[] WORDS = {"latte", "mocha", "espresso", "cappuccino", "americano", "macchiato",
+            "cortado", "vanilla", "caramel", "hazelnut", "oat", "almond", "iced", "double", "decaf", "cold", "brew",
+            "matcha", "chai", "honey", "cinnamon", "coconut", "toffee", "praline", "affogato"};
+
+    private static final String[] QUERIES = {"sku1234", "carmel sku12", "store17 espreso", "hazelnut sku77",
+            "iced oat", "cappu", "vanila latte store3"};
+
+    @Test
+    void searchLatency() {
+        Random random = new Random(42);
+        List<Product> products = new ArrayList<>(PRODUCTS);
+        for (long id = 1; id <= PRODUCTS; id++) {
+            Product p = new Product();
+            p.setId(id);
+            p.setName(WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)] + " "
+                    + WORDS[random.nextInt(WORDS.length)] + " store" + (id % 200) + " sku" + id);
+            p.setPrice(BigDecimal.valueOf(150 + random.nextInt(700), 2));
+            products.add(p);
+        }
+        ProductSearchIndex index = new ProductSearchIndex(null);
+        index.rebuild(products);
+
+        BigDecimal maxPrice = new BigDecimal("5.00");
+        for (int i = 0; i < WARMUP_QUERIES; i++) {
+            index.search(QUERIES[i % QUERIES.length], null, maxPrice, 0, 20);
+        }
+
+        long hits = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_QUERIES; i++) {
+            ProductSearchResult result = index.search(QUERIES[i % QUERIES.length], null, maxPrice, 0, 20);
+            hits += result.total();
+        }
+        double micros = (System.nanoTime() - start) / 1_000.0 / MEASURED_QUERIES;
+
+        System.out.printf("%d products: %.1f us/query, %.0f matches/query%n",
+                PRODUCTS, micros, (double) hits / MEASURED_QUERIES);
+        assertTrue(hits > 0);
+    }
+}
@@ -0,0 +1,105 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.dto.ProductSearchHit;
+import com.coffeeshop.catalogservice.dto.ProductSearchResult;
+import com.coffeeshop.catalogservice.model.Product;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ProductSearchIndexTest {
+
+    private ProductSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new ProductSearchIndex(null);
+        index.rebuild(List.of(
+                product(1L, "Caramel Latte", "4.50"),
+                product(2L, "Iced Caffè Latte", "4.20"),
+                product(3L, "Cappuccino", "3.80"),
+                product(4L, "Espresso", "2.50"),
+                product(5L, "Double Espresso", "3.10")));
+    }
+
+    @Test
+    void exactMatchesRankAbovePrefixAndTypoMatches() {
+        assertEquals(List.of(5L, 4L), ids(index.search("espresso", null, null, 0, 20)));
+        assertEquals(List.of(1L, 2L), ids(index.search("lat", null, null, 0, 20)));
+        // Accents are folded, so "caffe" is an exact match for "Caffè"
+        assertEquals(List.of(2L), ids(index.search("caffe", null, null, 0, 20)));
+        assertEquals(List.of(3L), ids(index.search("capuccino", null, null, 0, 20)));
+        assertEquals(List.of(5L, 4L), ids(index.search("epsresso", null, null, 0, 20)));
+        assertEquals(List.of(3L, 1L, 2L), ids(index.search("ca", null, null, 0, 20)));
+        assertEquals(List.of(5L, 4L), ids(index.search("e", null, null, 0, 20)));
+    }
+
+    @Test
+    void everyQueryWordMustMatch() {
+        assertEquals(List.of(2L), ids(index.search("iced latte", null, null, 0, 20)));
+        assertEquals(List.of(), ids(index.search("iced mocha", null, null, 0, 20)));
+    }
+
+    @Test
+    void filtersByPriceAndPaginates() {
+        assertEquals(List.of(2L), ids(index.search("latte", null, new BigDecimal("4.30"), 0, 20)));
+
+        ProductSearchResult first = index.search("", new BigDecimal("3.00"), new BigDecimal("4.50"), 0, 2);
+        assertEquals(List.of(5L, 3L), ids(first));
+        assertEquals(4, first.total());
+        assertEquals(List.of(2L, 1L), ids(index.search(null, new BigDecimal("3.00"), new BigDecimal("4.50"), 1, 2)));
+    }
+
+    @Test
+    void updatesAndRemovalsAreVisibleImmediately() {
+        index.put(product(3L, "Flat White", "3.90"));
+        assertEquals(List.of(), ids(index.search("cappuccino", null, null, 0, 20)));
+        assertEquals(List.of(3L), ids(index.search("flat", null, null, 0, 20)));
+
+        index.remove(4L);
+        assertEquals(List.of(5L), ids(index.search("espresso", null, null, 0, 20)));
+        assertEquals(4, index.search("", null, null, 0, 20).total());
+    }
+
+    @Test
+    void readersNeverSeeAProductMissingWhileItIsUpdatedOrReindexed() throws Exception {
+        List<Product> catalog = List.of(product(4L, "Espresso", "2.50"), product(5L, "Double Espresso", "3.10"));
+        index.rebuild(catalog);
+        AtomicBoolean done = new AtomicBoolean();
+        Thread writer = new Thread(() -> {
+            for (int i = 0; i < 2_000 && !done.get(); i++) {
+                index.put(product(4L, "Espresso", i % 2 == 0 ? "2.60" : "2.50"));
+                if (i % 50 == 0) index.rebuild(catalog);
+            }
+            done.set(true);
+        });
+        writer.start();
+        try {
+            while (!done.get()) {
+                assertEquals(List.of(5L, 4L), ids(index.search("espresso", null, null, 0, 20)));
+                assertEquals(List.of(4L, 5L), ids(index.search("", null, null, 0, 20)));
+            }
+        } finally {
+            done.set(true);
+            writer.join();
+        }
+    }
+
+    private static List<Long> ids(ProductSearchResult result) {
+        return result.items().stream().map(ProductSearchHit::id).toList();
+    }
+
+    private static Product product(Long id, String name, String price) {
+        Product p = new Product();
+        p.setId(id);
+        p.setName(name);
+        p.setPrice(new BigDecimal(price));
+        p.setStock(10);
+        return p;
+    }
+}
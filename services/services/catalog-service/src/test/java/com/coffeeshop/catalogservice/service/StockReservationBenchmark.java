@@ -0,0 +1,146 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.dto.ReserveStockRequest;
+import com.coffeeshop.catalogservice.exception.InsufficientStockException;
+import com.coffeeshop.catalogservice.repo.StockReservationRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Hundreds of concurrent reservers against a few hot products and a long tail of cold ones, on H2 in
+ * PostgreSQL mode. Checks that nothing is oversold and prints reservations/sec.
+ * Not picked up by the default surefire includes; run with
+ * {@code mvn test -Dtest=StockReservationBenchmark}.
+ */
+class StockReservationBenchmark {
+
+    private static final int RESERVERS = 400;
+    private static final int RESERVATIONS_PER_RESERVER = 50;
+    private static final int HOT_PRODUCTS = 3;
+    private static final int COLD_PRODUCTS = 500;
+    private static final int HOT_STOCK = 5_000;
+    private static final int COLD_STOCK = 200;
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbc;
+    private static StockReservationService service;
+    private static TransactionTemplate tx;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:reservations;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;LOCK_TIMEOUT=60000;DB_CLOSE_DELAY=-1");
+        dataSource.setMaximumPoolSize(32);
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        jdbc = new JdbcTemplate(dataSource);
+        service = new StockReservationService(new StockReservationRepository(jdbc), new MenuSnapshotCache(null, null),
+                Duration.ofMinutes(15), Duration.ofHours(24), 500);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void concurrentReservers() throws Exception {
+        List<Long> hot = insertProducts("Hot", HOT_PRODUCTS, HOT_STOCK);
+        List<Long> cold = insertProducts("Cold", COLD_PRODUCTS, COLD_STOCK);
+        Map<Long, Integer> initial = stockById();
+
+        AtomicLong reserved = new AtomicLong();
+        AtomicLong rejected = new AtomicLong();
+        ExecutorService pool = Executors.newFixedThreadPool(RESERVERS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int r = 0; r < RESERVERS; r++) {
+            long orderId = r;
+            futures.add(pool.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < RESERVATIONS_PER_RESERVER; i++) {
+                    // A drink from the hot list plus one or two from the long tail
+                    List<ReserveStockRequest.Item> items = new ArrayList<>();
+                    items.add(new ReserveStockRequest.Item(hot.get(random.nextInt(hot.size())), 1 + random.nextInt(2)));
+                    for (int k = random.nextInt(1, 3); k > 0; k--) {
+                        items.add(new ReserveStockRequest.Item(cold.get(random.nextInt(cold.size())), 1));
+                    }
+                    ReserveStockRequest req = new ReserveStockRequest();
+                    req.setOrderId(orderId);
+                    req.setItems(items);
+                    try {
+                        tx.executeWithoutResult(s -> service.reserve(req));
+                        reserved.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Future<?> f : futures) {
+            f.get();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        pool.shutdown();
+
+        long attempts = (long) RESERVERS * RESERVATIONS_PER_RESERVER;
+        System.out.printf("%n%d reservers, %,d attempts in %.2fs: %,.0f reservations/s (%,d reserved, %,d rejected for stock)%n",
+                RESERVERS, attempts, seconds, attempts / seconds, reserved.get(), rejected.get());
+
+        // Nothing oversold, and stock + active reservations adds up to what we started with
+        Map<Long, Integer> after = stockById();
+        Map<Long, Integer> held = jdbc.query(
+                "SELECT i.product_id, SUM(i.quantity) FROM stock_reservation_items i GROUP BY i.product_id",
+                rs -> {
+                    Map<Long, Integer> m = new java.util.HashMap<>();
+                    while (rs.next()) m.put(rs.getLong(1), rs.getInt(2));
+                    return m;
+                });
+        for (Map.Entry<Long, Integer> e : initial.entrySet()) {
+            int stock = after.get(e.getKey());
+            assertTrue(stock >= 0, "negative stock for product " + e.getKey());
+            assertEquals(e.getValue(), stock + held.getOrDefault(e.getKey(), 0), "stock leak for product " + e.getKey());
+        }
+        assertEquals(attempts, reserved.get() + rejected.get());
+    }
+
+    private static List<Long> insertProducts(String prefix, int count, int stock) {
+        List<Long> ids = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            jdbc.update("INSERT INTO products (name, price, stock) VALUES (?, 3.50, ?)", prefix + " " + i, stock);
+            ids.add(jdbc.queryForObject("SELECT MAX(id) FROM products", Long.class));
+        }
+        return ids;
+    }
+
+    private static Map<Long, Integer> stockById() {
+        return jdbc.queryForList("SELECT id, stock FROM products").stream()
+                .collect(Collectors.toMap(r -> ((Number) r.get("id")).longValue(), r -> ((Number) r.get("stock")).intValue()));
+    }
+}
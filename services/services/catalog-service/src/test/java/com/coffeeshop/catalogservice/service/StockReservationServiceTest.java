@@ -0,0 +1,123 @@
+package com.coffeeshop.catalogservice.service;
+
+import com.coffeeshop.catalogservice.dto.ReserveStockRequest;
+import com.coffeeshop.catalogservice.exception.InsufficientStockException;
+import com.coffeeshop.catalogservice.repo.StockReservationRepository;
+import com.zaxxer.hikari.HikariDataSource;
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class StockReservationServiceTest {
+
+    private static HikariDataSource dataSource;
+    private static JdbcTemplate jdbc;
+    private static StockReservationService service;
+    private static TransactionTemplate tx;
+
+    @BeforeAll
+    static void setUp() {
+        dataSource = new HikariDataSource();
+        dataSource.setJdbcUrl("jdbc:h2:mem:reservation-test;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1");
+        Flyway.configure().dataSource(dataSource).load().migrate();
+
+        jdbc = new JdbcTemplate(dataSource);
+        // Zero cart TTL: every ACTIVE reservation is already due for the expiry sweep until checkout extends it
+        service = new StockReservationService(new StockReservationRepository(jdbc), new MenuSnapshotCache(null, null),
+                Duration.ZERO, Duration.ofHours(1), 500);
+        tx = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+    }
+
+    @AfterAll
+    static void tearDown() {
+        dataSource.close();
+    }
+
+    @Test
+    void paymentConfirmsReservationsMadeBeforeIt() {
+        long productId = insertProduct(10);
+        reserve(100L, productId, 3);
+
+        assertEquals(1, (int) tx.execute(s -> service.confirmOrder(100L)));
+        tx.executeWithoutResult(s -> service.expireReservations());
+
+        assertEquals("CONFIRMED", statusOf(100L));
+        assertEquals(7, stockOf(productId));
+    }
+
+    @Test
+    void reservationAfterPaymentStartsConfirmed() {
+        long productId = insertProduct(10);
+
+        assertEquals(0, (int) tx.execute(s -> service.confirmOrder(200L)));
+        reserve(200L, productId, 2);
+        tx.executeWithoutResult(s -> service.expireReservations());
+
+        assertEquals("CONFIRMED", statusOf(200L));
+        assertEquals(8, stockOf(productId));
+    }
+
+    @Test
+    void checkoutTakesExpiredStockAgainAndKeepsItHeld() {
+        long productId = insertProduct(10);
+        reserve(300L, productId, 4);
+        tx.executeWithoutResult(s -> service.expireReservations());
+        assertEquals("EXPIRED", statusOf(300L));
+        assertEquals(10, stockOf(productId));
+
+        assertEquals(1, (int) tx.execute(s -> service.holdForCheckout(300L)));
+        tx.executeWithoutResult(s -> service.expireReservations());
+
+        assertEquals("ACTIVE", statusOf(300L));
+        assertEquals(6, stockOf(productId));
+        assertEquals(1, (int) tx.execute(s -> service.confirmOrder(300L)));
+    }
+
+    @Test
+    void checkoutFailsWhenExpiredStockIsGone() {
+        long productId = insertProduct(5);
+        reserve(400L, productId, 3);
+        tx.executeWithoutResult(s -> service.expireReservations());
+        jdbc.update("UPDATE products SET stock = 1 WHERE id = ?", productId);
+
+        assertThrows(InsufficientStockException.class, () -> tx.execute(s -> service.holdForCheckout(400L)));
+        assertEquals("EXPIRED", statusOf(400L));
+        assertEquals(1, stockOf(productId));
+    }
+
+    @Test
+    void checkoutFailsWhenNothingIsHeld() {
+        assertThrows(ResponseStatusException.class, () -> tx.execute(s -> service.holdForCheckout(500L)));
+    }
+
+    private static void reserve(Long orderId, long productId, int quantity) {
+        ReserveStockRequest req = new ReserveStockRequest();
+        req.setOrderId(orderId);
+        req.setItems(List.of(new ReserveStockRequest.Item(productId, quantity)));
+        tx.executeWithoutResult(s -> service.reserve(req));
+    }
+
+    private static long insertProduct(int stock) {
+        jdbc.update("INSERT INTO products (name, price, stock) VALUES ('Flat white', 3.50, ?)", stock);
+        return jdbc.queryForObject("SELECT MAX(id) FROM products", Long.class);
+    }
+
+    private static String statusOf(Long orderId) {
+        return jdbc.queryForObject("SELECT status FROM stock_reservations WHERE order_id = ?", String.class, orderId);
+    }
+
+    private static int stockOf(long productId) {
+        return jdbc.queryForObject("SELECT stock FROM products WHERE id = ?", Integer.class, productId);
+    }
+}